@@ -1,4 +1,4 @@
-import { useCallback, useEffect } from 'react';
+import { useCallback, useEffect, useState } from 'react';
 import { FormProvider, useForm } from 'react-hook-form';
 import { useDispatch, useSelector } from 'react-redux';
 import {
@@ -29,15 +29,23 @@ const AppointmentForm = () => {
   const practitioners = useSelector(practitionersSelectors.selectAll);
   const patients = useSelector(patientsSelectors.selectAll);
   const availabilities = useSelector(availabilitiesSelectors.selectEntities);
+  const [practitionerId, setPractitionerId] = useState<number>();
 
   useEffect(() => {
     dispatch(practitionersActions.getList());
     dispatch(patientsActions.getList());
   }, []);
 
+  // keep the listed availabilities current instead of polling them
+  useEffect(() => {
+    if (!practitionerId) return undefined;
+    return availabilitiesActions.subscribe(practitionerId, dispatch);
+  }, [practitionerId, dispatch]);
+
   const onPractitionerChange = useCallback(
     (practitionerId: number) => {
       setValue('availabilityId', '');
+      setPractitionerId(practitionerId || undefined);
       if (practitionerId) {
         dispatch(
           availabilitiesActions.getList({
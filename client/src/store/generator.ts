@@ -3,6 +3,7 @@ import {
   createAsyncThunk,
   createEntityAdapter,
   createSlice,
+  Dispatch,
   EntitySelectors,
   EntityState,
 } from '@reduxjs/toolkit';
@@ -69,6 +70,21 @@ const generator = <
 
   const reset = createAction<void>(`reset/${name}`);
 
+  const applyDelta = createAction<{ added: T[]; removed: number[] }>(
+    `applyDelta/${name}`,
+  );
+
+  // server-sent events of the entity's changes, returns the unsubscribe function
+  const subscribe = (id: number, dispatch: Dispatch) => {
+    const source = new EventSource(
+      `${SERVER_API_ENDPOINT}/${name}/${id}/events`,
+    );
+    source.addEventListener(name, (event: MessageEvent) =>
+      dispatch(applyDelta(JSON.parse(event.data))),
+    );
+    return () => source.close();
+  };
+
   const adapter = createEntityAdapter<T>(sortComparer ? { sortComparer } : {});
   const defaultSelectors = adapter.getSelectors();
   const enhancedSelectors = Object.keys(defaultSelectors).reduce(
@@ -98,6 +114,10 @@ const generator = <
         state.loading = false;
         state.error = null;
       });
+      builder.addCase(applyDelta, (state, action) => {
+        adapter.removeMany(state as SliceState<T>, action.payload.removed);
+        adapter.upsertMany(state as SliceState<T>, action.payload.added);
+      });
       builder.addCase(getList.pending, (state) => {
         state.loading = true;
       });
@@ -131,6 +151,8 @@ const generator = <
       reset,
       getList,
       create,
+      applyDelta,
+      subscribe,
     },
   };
 };
@@ -1,6 +1,8 @@
 import {
   ActionCreatorWithoutPayload,
+  ActionCreatorWithPayload,
   AsyncThunk,
+  Dispatch,
   EntitySelectors,
   EntityState,
   SerializedError,
@@ -80,6 +82,11 @@ export declare type SliceActions<
   reset: ActionCreatorWithoutPayload<string>;
   getList: AsyncThunk<T[], C['getList'], Record<string, unknown>>;
   create: AsyncThunk<T, C['create'], Record<string, unknown>>;
+  applyDelta: ActionCreatorWithPayload<
+    { added: T[]; removed: number[] },
+    string
+  >;
+  subscribe: (id: number, dispatch: Dispatch) => () => void;
 };
 
 export declare type StoreActions = {
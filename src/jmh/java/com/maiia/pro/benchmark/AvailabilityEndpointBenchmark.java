@@ -0,0 +1,87 @@
+package com.maiia.pro.benchmark;
+
+import com.maiia.pro.entity.Practitioner;
+import com.maiia.pro.entity.TimeSlot;
+import com.maiia.pro.repository.PractitionerRepository;
+import com.maiia.pro.repository.TimeSlotRepository;
+import com.maiia.pro.service.AvailabilityCache;
+import com.maiia.pro.service.ProAvailabilityService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency distribution of GET /availabilities and its /async variant under 64 concurrent clients, against a
+ * Tomcat capped at 8 threads. Every tenth request reads a practitioner whose cache entry was just dropped,
+ * so slow database reads compete with cached ones; compare the p99 and p99.9 of both endpoints.
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Threads(64)
+public class AvailabilityEndpointBenchmark {
+    private static final int PRACTITIONERS = 50;
+
+    @Param({"", "/async"})
+    public String variant;
+
+    private ConfigurableApplicationContext context;
+    private AvailabilityCache availabilityCache;
+    private HttpClient httpClient;
+    private final List<URI> uris = new ArrayList<>();
+    private final List<Integer> practitionerIds = new ArrayList<>();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContexts.start("server.tomcat.threads.max=8", "server.tomcat.accept-count=1000");
+        availabilityCache = context.getBean(AvailabilityCache.class);
+        ProAvailabilityService proAvailabilityService = context.getBean(ProAvailabilityService.class);
+        PractitionerRepository practitionerRepository = context.getBean(PractitionerRepository.class);
+        TimeSlotRepository timeSlotRepository = context.getBean(TimeSlotRepository.class);
+        String port = context.getEnvironment().getProperty("local.server.port");
+        for (int i = 0; i < PRACTITIONERS; i++) {
+            Practitioner practitioner = practitionerRepository.save(Practitioner.builder().firstName("benchmark" + i).lastName("maiia").build());
+            List<TimeSlot> timeSlots = BenchmarkCalendars.timeSlots(practitioner.getId(), 90);
+            timeSlotRepository.saveAll(timeSlots);
+            proAvailabilityService.generateAvailabilities(practitioner.getId());
+            practitionerIds.add(practitioner.getId());
+            uris.add(URI.create("http://localhost:" + port + "/availabilities" + variant + "?practitionerId=" + practitioner.getId()));
+        }
+        httpClient = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public int getAvailabilities() throws IOException, InterruptedException {
+        int index = ThreadLocalRandom.current().nextInt(PRACTITIONERS);
+        if (ThreadLocalRandom.current().nextInt(10) == 0) {
+            //outside of a transaction the entry is dropped right away, so this read goes to the database
+            availabilityCache.invalidateAfterCommit(practitionerIds.get(index));
+        }
+        HttpResponse<byte[]> response = httpClient.send(HttpRequest.newBuilder(uris.get(index)).GET().build(), HttpResponse.BodyHandlers.ofByteArray());
+        return response.statusCode();
+    }
+}
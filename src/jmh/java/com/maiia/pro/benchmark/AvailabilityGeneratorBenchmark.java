@@ -0,0 +1,73 @@
+package com.maiia.pro.benchmark;
+
+import com.maiia.pro.entity.Appointment;
+import com.maiia.pro.entity.Availability;
+import com.maiia.pro.entity.TimeSlot;
+import com.maiia.pro.service.AvailabilityGenerator;
+import com.maiia.pro.service.IntervalBuffer;
+import com.maiia.pro.service.Intervals;
+import com.maiia.pro.service.SlotRules;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class AvailabilityGeneratorBenchmark {
+    private static final Integer PRACTITIONER_ID = 1;
+
+    @Param({"7", "30", "180"})
+    public int days;
+
+    @Param({"0.1", "0.5", "0.9"})
+    public double appointmentDensity;
+
+    @Param({"15", "30"})
+    public int slotMinutes;
+
+    //a buffer makes every appointment collide with its neighbouring slots
+    @Param({"0", "5"})
+    public int bufferMinutes;
+
+    private final AvailabilityGenerator availabilityGenerator = new AvailabilityGenerator();
+    private SlotRules rules;
+    private List<TimeSlot> timeSlots;
+    private List<Appointment> appointments;
+    private final IntervalBuffer openIntervals = new IntervalBuffer(0);
+    private final IntervalBuffer bookedIntervals = new IntervalBuffer(0);
+    private final IntervalBuffer freeIntervals = new IntervalBuffer(0);
+
+    @Setup
+    public void setUp() {
+        rules = new SlotRules(slotMinutes, bufferMinutes, 0);
+        timeSlots = BenchmarkCalendars.timeSlots(PRACTITIONER_ID, days);
+        appointments = BenchmarkCalendars.appointments(PRACTITIONER_ID, timeSlots, appointmentDensity);
+        for (TimeSlot timeSlot : timeSlots) {
+            openIntervals.add(Intervals.toMinute(timeSlot.getStartDate()), Intervals.toMinute(timeSlot.getEndDate()));
+        }
+        for (Appointment appointment : appointments) {
+            bookedIntervals.add(Intervals.toMinute(appointment.getStartDate()), Intervals.toMinute(appointment.getEndDate()));
+        }
+    }
+
+    @Benchmark
+    public List<Availability> generate() {
+        return availabilityGenerator.generate(PRACTITIONER_ID, timeSlots, appointments, rules);
+    }
+
+    //the sweep alone on reused buffers, which should report close to zero bytes allocated per operation
+    @Benchmark
+    public IntervalBuffer generateIntervals() {
+        availabilityGenerator.generate(openIntervals, bookedIntervals, freeIntervals, rules);
+        return freeIntervals;
+    }
+}
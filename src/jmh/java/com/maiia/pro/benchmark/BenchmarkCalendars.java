@@ -0,0 +1,52 @@
+package com.maiia.pro.benchmark;
+
+import com.maiia.pro.entity.Appointment;
+import com.maiia.pro.entity.TimeSlot;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+//synthetic calendars: two time slots a day (8H-12H and 14H-18H) and appointments booked over them at a given density
+final class BenchmarkCalendars {
+    static final LocalDateTime FIRST_DAY = LocalDateTime.of(2021, 2, 8, 0, 0);
+
+    private BenchmarkCalendars() {
+    }
+
+    static List<TimeSlot> timeSlots(Integer practitionerId, int days) {
+        List<TimeSlot> timeSlots = new ArrayList<>(days * 2);
+        for (int day = 0; day < days; day++) {
+            LocalDateTime date = FIRST_DAY.plusDays(day);
+            timeSlots.add(TimeSlot.builder().practitionerId(practitionerId)
+                    .startDate(date.withHour(8)).endDate(date.withHour(12)).build());
+            timeSlots.add(TimeSlot.builder().practitionerId(practitionerId)
+                    .startDate(date.withHour(14)).endDate(date.withHour(18)).build());
+        }
+        return timeSlots;
+    }
+
+    //appointments last 15 or 20 minutes so that some of them do not line up with the 15 minute grid
+    static List<Appointment> appointments(Integer practitionerId, List<TimeSlot> timeSlots, double density) {
+        Random random = new Random(42);
+        List<Appointment> appointments = new ArrayList<>();
+        for (TimeSlot timeSlot : timeSlots) {
+            LocalDateTime cursor = timeSlot.getStartDate();
+            while (cursor.isBefore(timeSlot.getEndDate())) {
+                LocalDateTime end = cursor.plusMinutes(random.nextBoolean() ? 15 : 20);
+                if (end.isAfter(timeSlot.getEndDate())) {
+                    break;
+                }
+                if (random.nextDouble() < density) {
+                    appointments.add(Appointment.builder().practitionerId(practitionerId).patientId(1)
+                            .startDate(cursor).endDate(end).build());
+                    cursor = end;
+                } else {
+                    cursor = cursor.plusMinutes(15);
+                }
+            }
+        }
+        return appointments;
+    }
+}
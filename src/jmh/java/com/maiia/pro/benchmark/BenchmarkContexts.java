@@ -0,0 +1,22 @@
+package com.maiia.pro.benchmark;
+
+import com.maiia.pro.ProApplication;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+//boots the whole application against its in-memory H2 database, on a random port
+final class BenchmarkContexts {
+
+    private BenchmarkContexts() {
+    }
+
+    static ConfigurableApplicationContext start(String... properties) {
+        return new SpringApplicationBuilder(ProApplication.class)
+                .logStartupInfo(false)
+                .properties("server.port=0",
+                        "spring.main.banner-mode=off",
+                        "logging.level.root=WARN")
+                .properties(properties)
+                .run();
+    }
+}
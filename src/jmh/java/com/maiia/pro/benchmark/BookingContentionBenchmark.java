@@ -0,0 +1,89 @@
+package com.maiia.pro.benchmark;
+
+import com.maiia.pro.entity.Appointment;
+import com.maiia.pro.entity.Practitioner;
+import com.maiia.pro.entity.TimeSlot;
+import com.maiia.pro.repository.PractitionerRepository;
+import com.maiia.pro.repository.TimeSlotRepository;
+import com.maiia.pro.service.ProAppointmentService;
+import com.maiia.pro.service.ProAvailabilityService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Booking throughput of 8 clients, either all on one popular practitioner or spread over 8 practitioners.
+ * Every client books and cancels its own slot, so the difference between both cases is the cost of contention.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+@Threads(8)
+public class BookingContentionBenchmark {
+
+    @Param({"1", "8"})
+    public int practitioners;
+
+    private final AtomicInteger clients = new AtomicInteger();
+    private ConfigurableApplicationContext context;
+    private ProAppointmentService proAppointmentService;
+    private final List<Integer> practitionerIds = new ArrayList<>();
+
+    @State(Scope.Thread)
+    public static class Client {
+        private Integer practitionerId;
+        private LocalDateTime startDate;
+
+        @Setup(Level.Trial)
+        public void setUp(BookingContentionBenchmark benchmark) {
+            int index = benchmark.clients.getAndIncrement();
+            practitionerId = benchmark.practitionerIds.get(index % benchmark.practitioners);
+            startDate = BenchmarkCalendars.FIRST_DAY.withHour(8).plusMinutes(15L * index);
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContexts.start();
+        proAppointmentService = context.getBean(ProAppointmentService.class);
+        PractitionerRepository practitionerRepository = context.getBean(PractitionerRepository.class);
+        TimeSlotRepository timeSlotRepository = context.getBean(TimeSlotRepository.class);
+        ProAvailabilityService proAvailabilityService = context.getBean(ProAvailabilityService.class);
+        for (int i = 0; i < practitioners; i++) {
+            Practitioner practitioner = practitionerRepository.save(Practitioner.builder().firstName("benchmark" + i).lastName("maiia").build());
+            timeSlotRepository.save(TimeSlot.builder().practitionerId(practitioner.getId())
+                    .startDate(BenchmarkCalendars.FIRST_DAY.withHour(8)).endDate(BenchmarkCalendars.FIRST_DAY.withHour(18)).build());
+            proAvailabilityService.generateAvailabilities(practitioner.getId());
+            practitionerIds.add(practitioner.getId());
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public void bookAndCancel(Client client) {
+        Appointment appointment = proAppointmentService.book(Appointment.builder()
+                .practitionerId(client.practitionerId).patientId(1)
+                .startDate(client.startDate).endDate(client.startDate.plusMinutes(15))
+                .build());
+        proAppointmentService.cancel(appointment.getId());
+    }
+}
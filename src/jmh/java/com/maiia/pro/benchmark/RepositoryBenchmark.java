@@ -0,0 +1,92 @@
+package com.maiia.pro.benchmark;
+
+import com.maiia.pro.entity.Appointment;
+import com.maiia.pro.entity.Availability;
+import com.maiia.pro.entity.Practitioner;
+import com.maiia.pro.entity.TimeSlot;
+import com.maiia.pro.repository.AppointmentRepository;
+import com.maiia.pro.repository.AvailabilityRepository;
+import com.maiia.pro.repository.PractitionerRepository;
+import com.maiia.pro.repository.TimeSlotRepository;
+import com.maiia.pro.service.ProAvailabilityService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+//read and regeneration paths of one practitioner against H2, from the whole history down to one week
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class RepositoryBenchmark {
+
+    @Param({"30", "180"})
+    public int days;
+
+    private ConfigurableApplicationContext context;
+    private AvailabilityRepository availabilityRepository;
+    private AppointmentRepository appointmentRepository;
+    private ProAvailabilityService proAvailabilityService;
+    private Integer practitionerId;
+    private LocalDateTime weekStart;
+    private LocalDateTime weekEnd;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContexts.start();
+        availabilityRepository = context.getBean(AvailabilityRepository.class);
+        appointmentRepository = context.getBean(AppointmentRepository.class);
+        proAvailabilityService = context.getBean(ProAvailabilityService.class);
+        Practitioner practitioner = context.getBean(PractitionerRepository.class)
+                .save(Practitioner.builder().firstName("benchmark").lastName("maiia").build());
+        practitionerId = practitioner.getId();
+        List<TimeSlot> timeSlots = BenchmarkCalendars.timeSlots(practitionerId, days);
+        context.getBean(TimeSlotRepository.class).saveAll(timeSlots);
+        appointmentRepository.saveAll(BenchmarkCalendars.appointments(practitionerId, timeSlots, 0.5));
+        proAvailabilityService.generateAvailabilities(practitionerId);
+        weekStart = BenchmarkCalendars.FIRST_DAY.plusDays(days / 2);
+        weekEnd = weekStart.plusWeeks(1);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<Availability> findAllAvailabilities() {
+        return availabilityRepository.findByPractitionerId(practitionerId);
+    }
+
+    @Benchmark
+    public List<Availability> findWeekOfAvailabilities() {
+        return availabilityRepository.findByPractitionerIdBetween(practitionerId, weekStart, weekEnd);
+    }
+
+    @Benchmark
+    public List<Availability> findCachedWeekOfAvailabilities() {
+        return proAvailabilityService.findByPractitionerId(practitionerId, weekStart, weekEnd);
+    }
+
+    @Benchmark
+    public List<Appointment> findWeekOfAppointments() {
+        return appointmentRepository.findByPractitionerIdBetween(practitionerId, weekStart, weekEnd);
+    }
+
+    //nothing changed since the last run, so this measures the read and diff cost of a regeneration
+    @Benchmark
+    public List<Availability> regenerateAvailabilities() {
+        return proAvailabilityService.generateAvailabilities(practitionerId);
+    }
+}
@@ -0,0 +1,97 @@
+package com.maiia.pro.configuration;
+
+import com.maiia.pro.entity.Patient;
+import com.maiia.pro.entity.Practitioner;
+import com.maiia.pro.entity.TimeSlot;
+import com.maiia.pro.repository.PatientRepository;
+import com.maiia.pro.repository.PractitionerRepository;
+import com.maiia.pro.repository.TimeSlotRepository;
+import com.maiia.pro.service.AvailabilityGenerationJob;
+import com.maiia.pro.service.ProPatientService;
+import com.maiia.pro.service.ProPractitionerService;
+import com.maiia.pro.service.ProTimeSlotService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+//the demo calendar written at boot, either directly or once to build the snapshot
+@Component
+public class DemoDataSeeder {
+
+    private final Logger log = LoggerFactory.getLogger(DemoDataSeeder.class);
+
+    @Autowired
+    private PatientRepository patientRepository;
+    @Autowired
+    private PractitionerRepository practitionerRepository;
+    @Autowired
+    private TimeSlotRepository timeSlotRepository;
+
+    @Autowired
+    private ProPatientService proPatientService;
+    @Autowired
+    private ProPractitionerService proPractitionerService;
+    @Autowired
+    private ProTimeSlotService proTimeSlotService;
+
+    @Autowired
+    private AvailabilityGenerationJob availabilityGenerationJob;
+
+    public void seed() throws InterruptedException {
+        //initialise data, every entity type is written as one batched import
+        List<Patient> patients = new ArrayList<>();
+        List<Practitioner> practitioners = new ArrayList<>();
+        for (int i = 1; i <= 5; i++) {
+            String speciality ="orthodontist";
+            if (i % 2 == 0) {
+                speciality="general practitioner";
+            }
+            if (i == 3) {
+                speciality="dentist";
+            }
+            //create patient
+            patients.add(Patient.builder().firstName("patient_" + i).lastName("maiia").build());
+            //create practitioner
+            practitioners.add(Practitioner.builder().firstName("practitioner" + i).lastName("maiia").speciality(speciality).build());
+        }
+        proPatientService.importPatients(patients);
+        proPractitionerService.importPractitioners(practitioners);
+
+        List<TimeSlot> timeSlotList = new ArrayList<>();
+        List<Integer> practitionerIds = new ArrayList<>();
+        for (int i = 1; i <= 5; i++) {
+            Practitioner practitioner = practitioners.get(i - 1);
+            //create timeSlots for practitioner
+            //timeslot from 2021/02/08 at 8H to 2021/02/08 at 12H
+            timeSlotList.add(TimeSlot.builder().startDate(LocalDateTime.of(2021, 2, 8, 8, 0))
+                    .endDate(LocalDateTime.of(2021, 2, 8, 12, 0)).practitionerId(practitioner.getId()).build());
+            //timeslot from 2021/02/08 at 14H to 2021/02/08 at 17H
+            timeSlotList.add(TimeSlot.builder().startDate(LocalDateTime.of(2021, 2, 8, 14, 0))
+                    .endDate(LocalDateTime.of(2021, 2, 8, 17, 0)).practitionerId(practitioner.getId()).build());
+            //timeslot from 2021/02/09 at 9H to 2021/02/09 at 17H
+            timeSlotList.add(TimeSlot.builder().startDate(LocalDateTime.of(2021, 2, 9, 9, 0))
+                    .endDate(LocalDateTime.of(2021, 2, 9, 17, 0)).practitionerId(practitioner.getId()).build());
+            if (i % 2 == 0) {
+                //timeslot from 2021/02/10 at 9H to 2021/02/10 at 16H
+                timeSlotList.add(TimeSlot.builder().startDate(LocalDateTime.of(2021, 2, 10, 9, 0))
+                        .endDate(LocalDateTime.of(2021, 2, 10, 16, 0)).practitionerId(practitioner.getId()).build());
+            }
+            if (i == 3) {
+                //timeslot from 2021/02/11 at 11H to 2021/02/11 at 18H
+                timeSlotList.add(TimeSlot.builder().startDate(LocalDateTime.of(2021, 2, 11, 11, 0))
+                        .endDate(LocalDateTime.of(2021, 2, 11, 18, 0)).practitionerId(practitioner.getId()).build());
+            }
+            practitionerIds.add(practitioner.getId());
+        }
+        proTimeSlotService.importTimeSlots(timeSlotList);
+        availabilityGenerationJob.generate(practitionerIds);
+        log.info("------------------created patients---------------- " + patientRepository.findAll());
+        log.info("------------------created practitioners---------------- " + practitionerRepository.findAll());
+        log.info("------------------created timeSlots---------------- " + timeSlotRepository.findAll());
+    }
+}
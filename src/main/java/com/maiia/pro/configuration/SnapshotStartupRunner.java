@@ -0,0 +1,104 @@
+package com.maiia.pro.configuration;
+
+import com.maiia.pro.service.CalendarMaintenanceJob;
+import com.maiia.pro.service.ProMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.util.DigestUtils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+
+/**
+ * Fast boot of the snapshot profile: the whole database, availabilities and rollups included, is restored in bulk
+ * from a gzipped H2 script. When the script does not exist yet, the demo data is seeded once and exported to it.
+ * The script holds the schema as well, so it is stored next to a hash of the schema it was taken from: a snapshot
+ * of other entities is built again rather than restored.
+ */
+@Configuration
+@Profile("snapshot")
+public class SnapshotStartupRunner implements CommandLineRunner {
+
+    private final Logger log = LoggerFactory.getLogger(SnapshotStartupRunner.class);
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private DemoDataSeeder demoDataSeeder;
+
+    @Autowired
+    private CalendarMaintenanceJob calendarMaintenanceJob;
+
+    @Autowired
+    private ProMetrics proMetrics;
+
+    @Value("${pro.snapshot.path:snapshot/maiia.sql.gz}")
+    private String snapshotPath;
+
+    @Override
+    public void run(String... args) throws InterruptedException, IOException {
+        long start = System.nanoTime();
+        Path path = Paths.get(snapshotPath);
+        Path schemaPath = Paths.get(snapshotPath + ".schema");
+        //the schema Hibernate has just created from the current entities
+        String schema = schemaHash();
+        if (Files.exists(path) && Files.exists(schemaPath) && schema.equals(Files.readString(schemaPath).trim())) {
+            jdbcTemplate.execute("DROP ALL OBJECTS");
+            jdbcTemplate.execute("RUNSCRIPT FROM " + literal(path) + " COMPRESSION GZIP");
+            //the nightly runs missed since the snapshot was taken: prune the past, then move the horizon to today's in the background
+            calendarMaintenanceJob.archive();
+            calendarMaintenanceJob.rollHorizon();
+            report("snapshot-restore", path, start);
+            return;
+        }
+        if (Files.exists(path)) {
+            log.info("Snapshot at {} was taken from another schema, building it again", path.toAbsolutePath());
+        } else {
+            log.info("No snapshot at {}, seeding the database to build it", path.toAbsolutePath());
+        }
+        demoDataSeeder.seed();
+        if (path.getParent() != null) {
+            Files.createDirectories(path.getParent());
+        }
+        jdbcTemplate.execute("SCRIPT TO " + literal(path) + " COMPRESSION GZIP");
+        Files.writeString(schemaPath, schema);
+        report("snapshot-build", path, start);
+    }
+
+    //tables, columns and sequences, in a stable order
+    private String schemaHash() {
+        StringBuilder schema = new StringBuilder();
+        jdbcTemplate.query("select TABLE_NAME, COLUMN_NAME, DATA_TYPE, IS_NULLABLE from INFORMATION_SCHEMA.COLUMNS"
+                        + " where TABLE_SCHEMA = 'PUBLIC' order by TABLE_NAME, COLUMN_NAME",
+                row -> {
+                    schema.append(row.getString(1)).append('.').append(row.getString(2)).append(' ')
+                            .append(row.getString(3)).append(' ').append(row.getString(4)).append('\n');
+                });
+        jdbcTemplate.query("select SEQUENCE_NAME from INFORMATION_SCHEMA.SEQUENCES where SEQUENCE_SCHEMA = 'PUBLIC' order by SEQUENCE_NAME",
+                row -> {
+                    schema.append(row.getString(1)).append('\n');
+                });
+        return DigestUtils.md5DigestAsHex(schema.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private void report(String operation, Path path, long start) throws IOException {
+        Duration duration = Duration.ofNanos(System.nanoTime() - start);
+        proMetrics.startup(operation, duration);
+        log.info("Database loaded by {} of {} ({} KB) in {} ms", operation, path, Files.size(path) / 1024, duration.toMillis());
+    }
+
+    private static String literal(Path path) {
+        return "'" + path.toAbsolutePath().toString().replace("'", "''") + "'";
+    }
+}
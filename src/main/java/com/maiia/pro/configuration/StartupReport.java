@@ -0,0 +1,34 @@
+package com.maiia.pro.configuration;
+
+import com.maiia.pro.service.ProMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.Arrays;
+
+//the application only reports ready once the startup runners have loaded the data, so this is the time to scale out
+@Component
+public class StartupReport {
+
+    private final Logger log = LoggerFactory.getLogger(StartupReport.class);
+
+    @Autowired
+    private ProMetrics proMetrics;
+
+    @Autowired
+    private Environment environment;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void ready() {
+        Duration uptime = Duration.ofMillis(ManagementFactory.getRuntimeMXBean().getUptime());
+        proMetrics.startup("ready", uptime);
+        log.info("Ready {} ms after JVM start, profiles {}", uptime.toMillis(), Arrays.toString(environment.getActiveProfiles()));
+    }
+}
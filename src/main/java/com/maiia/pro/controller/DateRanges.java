@@ -0,0 +1,24 @@
+package com.maiia.pro.controller;
+
+import java.time.LocalDateTime;
+import java.time.Period;
+
+//booking screens show a week at a time, so a half-open range defaults to one week
+final class DateRanges {
+    static final Period DEFAULT_RANGE = Period.ofWeeks(1);
+
+    private DateRanges() {
+    }
+
+    static boolean isBounded(LocalDateTime from, LocalDateTime to) {
+        return from != null || to != null;
+    }
+
+    static LocalDateTime from(LocalDateTime from, LocalDateTime to) {
+        return from != null ? from : to.minus(DEFAULT_RANGE);
+    }
+
+    static LocalDateTime to(LocalDateTime from, LocalDateTime to) {
+        return to != null ? to : from.plus(DEFAULT_RANGE);
+    }
+}
@@ -1,12 +1,20 @@
 package com.maiia.pro.controller;
 
+import com.maiia.pro.dto.AppointmentView;
+import com.maiia.pro.dto.KeysetPage;
 import com.maiia.pro.entity.Appointment;
+import com.maiia.pro.entity.ArchivedAppointment;
+import com.maiia.pro.service.PractitionerVersions;
 import com.maiia.pro.service.ProAppointmentService;
 import io.swagger.annotations.ApiOperation;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @CrossOrigin
@@ -16,15 +24,85 @@ public class ProAppointmentController {
     @Autowired
     private ProAppointmentService proAppointmentService;
 
-    @ApiOperation(value = "Get appointments by practitionerId")
+    @Autowired
+    private PractitionerVersions practitionerVersions;
+
+    @Autowired
+    private NdjsonResponses ndjsonResponses;
+
+    @ApiOperation(value = "Get appointments by practitionerId", notes = "Optionally bounded to the appointments starting in [from, to)")
     @GetMapping("/{practitionerId}")
-    public List<Appointment> getAppointmentsByPractitioner(@PathVariable final String practitionerId) {
+    public List<AppointmentView> getAppointmentsByPractitioner(@PathVariable final Integer practitionerId,
+                                                               @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) final LocalDateTime from,
+                                                               @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) final LocalDateTime to,
+                                                               final WebRequest request) {
+        if (request.checkNotModified(practitionerVersions.etag(practitionerId))) {
+            return null;
+        }
+        if (DateRanges.isBounded(from, to)) {
+            return proAppointmentService.findByPractitionerId(practitionerId, DateRanges.from(from, to), DateRanges.to(from, to));
+        }
         return proAppointmentService.findByPractitionerId(practitionerId);
     }
 
+    @ApiOperation(value = "Get the appointments of a practitioner overlapping [from, to)")
+    @GetMapping("/{practitionerId}/overlapping")
+    public List<AppointmentView> getOverlappingAppointments(@PathVariable final Integer practitionerId,
+                                                            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) final LocalDateTime from,
+                                                            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) final LocalDateTime to,
+                                                            final WebRequest request) {
+        if (request.checkNotModified(practitionerVersions.etag(practitionerId))) {
+            return null;
+        }
+        return proAppointmentService.findOverlapping(practitionerId, from, to);
+    }
+
+    @ApiOperation(value = "Tell whether [from, to) is inside the time slots of a practitioner and free of appointments")
+    @GetMapping("/{practitionerId}/free")
+    public Boolean isFree(@PathVariable final Integer practitionerId,
+                          @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) final LocalDateTime from,
+                          @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) final LocalDateTime to,
+                          final WebRequest request) {
+        if (request.checkNotModified(practitionerVersions.etag(practitionerId))) {
+            return null;
+        }
+        return proAppointmentService.isFree(practitionerId, from, to);
+    }
+
+    @ApiOperation(value = "Get the archived appointments of a practitioner", notes = "Appointments leave the hot table once past the archive retention")
+    @GetMapping("/{practitionerId}/archived")
+    public List<ArchivedAppointment> getArchivedAppointments(@PathVariable final Integer practitionerId) {
+        return proAppointmentService.findArchivedByPractitionerId(practitionerId);
+    }
+
     @ApiOperation(value = "Get all appointments")
     @GetMapping
-    public List<Appointment> getAppointments() {
+    public List<AppointmentView> getAppointments() {
         return proAppointmentService.findAll();
     }
+
+    @ApiOperation(value = "Get a page of appointments", notes = "Keyset pagination: pass the returned nextCursor as after to get the next page")
+    @GetMapping("/page")
+    public KeysetPage<AppointmentView> getAppointmentsPage(@RequestParam(required = false) final Integer after,
+                                                           @RequestParam(defaultValue = "" + KeysetPage.DEFAULT_LIMIT) final int limit) {
+        return proAppointmentService.findPage(after, limit);
+    }
+
+    @ApiOperation(value = "Stream all appointments as newline delimited JSON")
+    @GetMapping(value = "/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public StreamingResponseBody streamAppointments() {
+        return ndjsonResponses.stream(proAppointmentService::streamAll);
+    }
+
+    @ApiOperation(value = "Book an appointment", notes = "Fails with 409 when the slot is not free")
+    @PostMapping(consumes = MediaType.APPLICATION_JSON_VALUE)
+    public Appointment createAppointment(@RequestBody final Appointment appointment) {
+        return proAppointmentService.book(appointment);
+    }
+
+    @ApiOperation(value = "Cancel an appointment")
+    @DeleteMapping("/{appointmentId}")
+    public void cancelAppointment(@PathVariable final Integer appointmentId) {
+        proAppointmentService.cancel(appointmentId);
+    }
 }
@@ -1,24 +1,143 @@
 package com.maiia.pro.controller;
 
+import com.maiia.pro.dto.CacheStatistics;
+import com.maiia.pro.dto.GenerationProgress;
 import com.maiia.pro.entity.Availability;
+import com.maiia.pro.exception.GenerationJobNotFoundException;
+import com.maiia.pro.service.AvailabilityCache;
+import com.maiia.pro.service.AvailabilityFeed;
+import com.maiia.pro.service.AvailabilityGenerationJob;
+import com.maiia.pro.service.AvailabilityLookupExecutor;
+import com.maiia.pro.service.PractitionerVersions;
 import com.maiia.pro.service.ProAvailabilityService;
 import io.swagger.annotations.ApiOperation;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.time.Duration;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.concurrent.CompletionException;
 
 @CrossOrigin
 @RestController
 @RequestMapping(value = "/availabilities", produces = MediaType.APPLICATION_JSON_VALUE)
 public class ProAvailabilityController {
+    private static final int MAX_FIRST_AVAILABILITIES = 100;
+
     @Autowired
     private ProAvailabilityService proAvailabilityService;
 
-    @ApiOperation(value = "Get availabilities by practitionerId")
+    @Autowired
+    private PractitionerVersions practitionerVersions;
+
+    @Autowired
+    private AvailabilityGenerationJob availabilityGenerationJob;
+
+    @Autowired
+    private AvailabilityCache availabilityCache;
+
+    @Autowired
+    private AvailabilityLookupExecutor availabilityLookupExecutor;
+
+    @Autowired
+    private AvailabilityFeed availabilityFeed;
+
+    @Value("${pro.availability.async.timeout:10s}")
+    private Duration asyncTimeout;
+
+    @ApiOperation(value = "Get availabilities by practitionerId", notes = "Optionally bounded to the availabilities starting in [from, to). "
+            + "Availabilities are stored up to a rolling horizon, a bounded query reaching past it generates the missing ones first")
     @GetMapping
-    public List<Availability> getAvailabilities(@RequestParam final Integer practitionerId) {
+    public List<Availability> getAvailabilities(@RequestParam final Integer practitionerId,
+                                                @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) final LocalDateTime from,
+                                                @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) final LocalDateTime to,
+                                                final WebRequest request) {
+        if (request.checkNotModified(practitionerVersions.availabilitiesEtag(practitionerId))) {
+            return null;
+        }
+        return findAvailabilities(practitionerId, from, to);
+    }
+
+    @ApiOperation(value = "Get availabilities by practitionerId without holding a servlet thread",
+            notes = "Same as GET /availabilities, run on a bounded pool; answers 503 when that pool is saturated or the lookup times out")
+    @GetMapping("/async")
+    public DeferredResult<List<Availability>> getAvailabilitiesAsync(@RequestParam final Integer practitionerId,
+                                                                     @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) final LocalDateTime from,
+                                                                     @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) final LocalDateTime to,
+                                                                     final WebRequest request) {
+        //the timeout is set here rather than globally, which would also cut the long running ndjson streams
+        DeferredResult<List<Availability>> result = new DeferredResult<>(asyncTimeout.toMillis());
+        //the stamp is held in memory, so the check costs no query on the servlet thread
+        if (request.checkNotModified(practitionerVersions.availabilitiesEtag(practitionerId))) {
+            result.setResult(null);
+            return result;
+        }
+        availabilityLookupExecutor.supply(() -> findAvailabilities(practitionerId, from, to))
+                .whenComplete((availabilities, error) -> {
+                    if (error != null) {
+                        result.setErrorResult(error instanceof CompletionException ? error.getCause() : error);
+                    } else {
+                        result.setResult(availabilities);
+                    }
+                });
+        return result;
+    }
+
+    @ApiOperation(value = "Subscribe to the availability changes of a practitioner",
+            notes = "Server-sent events named availabilities, each carrying the added availabilities and the removed ids, batched every flush interval")
+    @GetMapping(value = "/{practitionerId}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter subscribe(@PathVariable final Integer practitionerId) {
+        return availabilityFeed.subscribe(practitionerId);
+    }
+
+    @ApiOperation(value = "Get the first availabilities of all practitioners of a speciality", notes = "Starting at or after the given date, now by default")
+    @GetMapping("/first")
+    public List<Availability> getFirstAvailabilities(@RequestParam final String speciality,
+                                                     @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) final LocalDateTime after,
+                                                     @RequestParam(defaultValue = "10") final int limit) {
+        return proAvailabilityService.findFirstAvailable(speciality, after != null ? after : LocalDateTime.now(),
+                Math.min(Math.max(limit, 1), MAX_FIRST_AVAILABILITIES));
+    }
+
+    @ApiOperation(value = "Start generating the availabilities of all practitioners", notes = "Returns the progress of the job, or of the one already running")
+    @PostMapping("/generation")
+    public GenerationProgress startGeneration() {
+        return availabilityGenerationJob.start();
+    }
+
+    @ApiOperation(value = "Get the progress of the last availability generation")
+    @GetMapping("/generation")
+    public GenerationProgress getGenerationProgress() {
+        return availabilityGenerationJob.getProgress();
+    }
+
+    @ApiOperation(value = "Get the progress of an availability generation job", notes = "Only the most recent jobs are kept")
+    @GetMapping("/generation/{jobId}")
+    public GenerationProgress getGenerationProgress(@PathVariable final long jobId) {
+        GenerationProgress progress = availabilityGenerationJob.getProgress(jobId);
+        if (progress == null) {
+            throw new GenerationJobNotFoundException("Unknown or expired generation job " + jobId);
+        }
+        return progress;
+    }
+
+    @ApiOperation(value = "Get hit, miss and eviction statistics of the availability cache")
+    @GetMapping("/cache")
+    public CacheStatistics getCacheStatistics() {
+        return availabilityCache.getStatistics();
+    }
+
+    private List<Availability> findAvailabilities(Integer practitionerId, LocalDateTime from, LocalDateTime to) {
+        if (DateRanges.isBounded(from, to)) {
+            return proAvailabilityService.findByPractitionerId(practitionerId, DateRanges.from(from, to), DateRanges.to(from, to));
+        }
         return proAvailabilityService.findByPractitionerId(practitionerId);
     }
 }
@@ -0,0 +1,49 @@
+package com.maiia.pro.controller;
+
+import com.maiia.pro.dto.BookingRuleChange;
+import com.maiia.pro.entity.BookingRule;
+import com.maiia.pro.service.ProBookingRuleService;
+import io.swagger.annotations.ApiOperation;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@CrossOrigin
+@RestController
+@RequestMapping(value = "/booking-rules", produces = MediaType.APPLICATION_JSON_VALUE)
+public class ProBookingRuleController {
+    @Autowired
+    private ProBookingRuleService proBookingRuleService;
+
+    @ApiOperation(value = "Get all booking rules")
+    @GetMapping
+    public List<BookingRule> getBookingRules() {
+        return proBookingRuleService.findAll();
+    }
+
+    @ApiOperation(value = "Create a booking rule", notes = "Sets the slot length, buffer and minimum notice of a practitioner or of a speciality; "
+            + "unset values fall back to the speciality rule, then to the defaults. The affected practitioners are regenerated in the background")
+    @PostMapping
+    @ResponseStatus(HttpStatus.ACCEPTED)
+    public BookingRuleChange createBookingRule(@RequestBody final BookingRule rule) {
+        return proBookingRuleService.create(rule);
+    }
+
+    @ApiOperation(value = "Delete a booking rule", notes = "The affected practitioners are regenerated in the background")
+    @DeleteMapping("/{ruleId}")
+    @ResponseStatus(HttpStatus.ACCEPTED)
+    public BookingRuleChange deleteBookingRule(@PathVariable final Integer ruleId) {
+        return proBookingRuleService.delete(ruleId);
+    }
+}
@@ -1,5 +1,7 @@
 package com.maiia.pro.controller;
 
+import com.maiia.pro.dto.KeysetPage;
+import com.maiia.pro.dto.PatientView;
 import com.maiia.pro.entity.Patient;
 import com.maiia.pro.service.ProPatientService;
 import io.swagger.annotations.ApiOperation;
@@ -7,10 +9,15 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
+import java.util.stream.Collectors;
 
 @CrossOrigin
 @RestController
@@ -19,9 +26,31 @@ public class ProPatientController {
     @Autowired
     private ProPatientService proPatientService;
 
+    @Autowired
+    private NdjsonResponses ndjsonResponses;
+
     @ApiOperation(value = "Get patients")
     @GetMapping
-    public List<Patient> getPatients() {
+    public List<PatientView> getPatients() {
         return proPatientService.findAll();
     }
+
+    @ApiOperation(value = "Get a page of patients", notes = "Keyset pagination: pass the returned nextCursor as after to get the next page")
+    @GetMapping("/page")
+    public KeysetPage<PatientView> getPatientsPage(@RequestParam(required = false) final Integer after,
+                                                   @RequestParam(defaultValue = "" + KeysetPage.DEFAULT_LIMIT) final int limit) {
+        return proPatientService.findPage(after, limit);
+    }
+
+    @ApiOperation(value = "Import patients", notes = "Rows are inserted in JDBC batches; returns the generated ids, in the order of the rows")
+    @PostMapping("/import")
+    public List<Integer> importPatients(@RequestBody final List<Patient> patients) {
+        return proPatientService.importPatients(patients).stream().map(Patient::getId).collect(Collectors.toList());
+    }
+
+    @ApiOperation(value = "Stream all patients as newline delimited JSON")
+    @GetMapping(value = "/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public StreamingResponseBody streamPatients() {
+        return ndjsonResponses.stream(proPatientService::streamAll);
+    }
 }
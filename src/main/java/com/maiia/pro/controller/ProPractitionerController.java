@@ -1,16 +1,29 @@
 package com.maiia.pro.controller;
 
+import com.maiia.pro.dto.KeysetPage;
+import com.maiia.pro.dto.Utilisation;
+import com.maiia.pro.dto.PractitionerView;
 import com.maiia.pro.entity.Practitioner;
+import com.maiia.pro.service.PractitionerVersions;
 import com.maiia.pro.service.ProPractitionerService;
 import io.swagger.annotations.ApiOperation;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.stream.Collectors;
 
 @CrossOrigin
 @RestController
@@ -19,9 +32,49 @@ public class ProPractitionerController {
     @Autowired
     private ProPractitionerService proPractitionerService;
 
+    @Autowired
+    private PractitionerVersions practitionerVersions;
+
+    @Autowired
+    private NdjsonResponses ndjsonResponses;
+
     @ApiOperation(value = "Get practitioners")
     @GetMapping
-    public List<Practitioner> getPractitioners() {
+    public List<PractitionerView> getPractitioners(final WebRequest request) {
+        if (request.checkNotModified(practitionerVersions.practitionersEtag())) {
+            return null;
+        }
         return proPractitionerService.findAll();
     }
+
+    @ApiOperation(value = "Get the open and booked minutes of a practitioner in [from, to)")
+    @GetMapping("/{practitionerId}/utilisation")
+    public Utilisation getUtilisation(@PathVariable final Integer practitionerId,
+                                      @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) final LocalDateTime from,
+                                      @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) final LocalDateTime to,
+                                      final WebRequest request) {
+        if (request.checkNotModified(practitionerVersions.etag(practitionerId))) {
+            return null;
+        }
+        return proPractitionerService.getUtilisation(practitionerId, from, to);
+    }
+
+    @ApiOperation(value = "Get a page of practitioners", notes = "Keyset pagination: pass the returned nextCursor as after to get the next page")
+    @GetMapping("/page")
+    public KeysetPage<PractitionerView> getPractitionersPage(@RequestParam(required = false) final Integer after,
+                                                             @RequestParam(defaultValue = "" + KeysetPage.DEFAULT_LIMIT) final int limit) {
+        return proPractitionerService.findPage(after, limit);
+    }
+
+    @ApiOperation(value = "Import practitioners", notes = "Rows are inserted in JDBC batches; returns the generated ids, in the order of the rows")
+    @PostMapping("/import")
+    public List<Integer> importPractitioners(@RequestBody final List<Practitioner> practitioners) {
+        return proPractitionerService.importPractitioners(practitioners).stream().map(Practitioner::getId).collect(Collectors.toList());
+    }
+
+    @ApiOperation(value = "Stream all practitioners as newline delimited JSON")
+    @GetMapping(value = "/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public StreamingResponseBody streamPractitioners() {
+        return ndjsonResponses.stream(proPractitionerService::streamAll);
+    }
 }
@@ -0,0 +1,64 @@
+package com.maiia.pro.controller;
+
+import com.maiia.pro.dto.DailyUtilisation;
+import com.maiia.pro.dto.TimeSlotUtilisation;
+import com.maiia.pro.service.PractitionerVersions;
+import com.maiia.pro.service.ProStatisticsService;
+import io.swagger.annotations.ApiOperation;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@CrossOrigin
+@RestController
+@RequestMapping(value = "/statistics", produces = MediaType.APPLICATION_JSON_VALUE)
+public class ProStatisticsController {
+    @Autowired
+    private ProStatisticsService proStatisticsService;
+
+    @Autowired
+    private PractitionerVersions practitionerVersions;
+
+    @ApiOperation(value = "Get the open and booked minutes of a practitioner per day", notes = "Over the days of [from, to), read from the daily rollup")
+    @GetMapping("/practitioners/{practitionerId}/daily")
+    public List<DailyUtilisation> getPractitionerDaily(@PathVariable final Integer practitionerId,
+                                                       @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) final LocalDate from,
+                                                       @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) final LocalDate to,
+                                                       final WebRequest request) {
+        if (request.checkNotModified(practitionerVersions.etag(practitionerId))) {
+            return null;
+        }
+        return proStatisticsService.findDailyByPractitionerId(practitionerId, from, to);
+    }
+
+    @ApiOperation(value = "Get the fill rate of each time slot of a practitioner", notes = "For the time slots overlapping [from, to), rule occurrences included")
+    @GetMapping("/practitioners/{practitionerId}/timeslots")
+    public List<TimeSlotUtilisation> getTimeSlotUtilisation(@PathVariable final Integer practitionerId,
+                                                            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) final LocalDateTime from,
+                                                            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) final LocalDateTime to,
+                                                            final WebRequest request) {
+        if (request.checkNotModified(practitionerVersions.etag(practitionerId))) {
+            return null;
+        }
+        return proStatisticsService.findTimeSlotUtilisation(practitionerId, from, to);
+    }
+
+    @ApiOperation(value = "Get the open and booked minutes of all practitioners of a speciality per day", notes = "Over the days of [from, to), summed from the daily rollup")
+    @GetMapping("/specialities/daily")
+    public List<DailyUtilisation> getSpecialityDaily(@RequestParam final String speciality,
+                                                     @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) final LocalDate from,
+                                                     @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) final LocalDate to) {
+        return proStatisticsService.findDailyBySpeciality(speciality, from, to);
+    }
+}
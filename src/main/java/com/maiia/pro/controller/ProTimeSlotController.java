@@ -0,0 +1,88 @@
+package com.maiia.pro.controller;
+
+import com.maiia.pro.dto.TimeSlotImportResult;
+import com.maiia.pro.entity.TimeSlot;
+import com.maiia.pro.entity.TimeSlotRule;
+import com.maiia.pro.entity.TimeSlotRuleExclusion;
+import com.maiia.pro.service.ProTimeSlotService;
+import io.swagger.annotations.ApiOperation;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@CrossOrigin
+@RestController
+@RequestMapping(value = "/timeslots", produces = MediaType.APPLICATION_JSON_VALUE)
+public class ProTimeSlotController {
+    private static final String TEXT_CSV_VALUE = "text/csv";
+
+    @Autowired
+    private ProTimeSlotService proTimeSlotService;
+
+    @ApiOperation(value = "Get time slots by practitionerId", notes = "Includes the occurrences of the practitioner's weekly rules, from the archive retention on when unbounded. Optionally bounded to the time slots overlapping [from, to)")
+    @GetMapping
+    public List<TimeSlot> getTimeSlots(@RequestParam final Integer practitionerId,
+                                       @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) final LocalDateTime from,
+                                       @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) final LocalDateTime to) {
+        if (DateRanges.isBounded(from, to)) {
+            return proTimeSlotService.findByPractitionerId(practitionerId, DateRanges.from(from, to), DateRanges.to(from, to));
+        }
+        return proTimeSlotService.findByPractitionerId(practitionerId);
+    }
+
+    @ApiOperation(value = "Import time slots from a csv upload", notes = "One practitionerId,startDate,endDate row per line, header optional. Overlapping slots are merged and the changed practitioners regenerated in the background, see GET /availabilities/generation/{jobId}")
+    @PostMapping(value = "/import", consumes = TEXT_CSV_VALUE)
+    @ResponseStatus(HttpStatus.ACCEPTED)
+    public TimeSlotImportResult importCsv(final InputStream body) throws IOException {
+        return proTimeSlotService.importCsv(body);
+    }
+
+    @ApiOperation(value = "Import time slots from a newline delimited JSON upload", notes = "One time slot object per line. Overlapping slots are merged and the changed practitioners regenerated in the background, see GET /availabilities/generation/{jobId}")
+    @PostMapping(value = "/import", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    @ResponseStatus(HttpStatus.ACCEPTED)
+    public TimeSlotImportResult importNdjson(final InputStream body) throws IOException {
+        return proTimeSlotService.importNdjson(body);
+    }
+
+    @ApiOperation(value = "Get the weekly time slot rules of a practitioner")
+    @GetMapping("/rules")
+    public List<TimeSlotRule> getRules(@RequestParam final Integer practitionerId) {
+        return proTimeSlotService.findRulesByPractitionerId(practitionerId);
+    }
+
+    @ApiOperation(value = "Create a weekly time slot rule", notes = "The practitioner's availabilities are regenerated up to the rule horizon")
+    @PostMapping("/rules")
+    public TimeSlotRule createRule(@RequestBody final TimeSlotRule rule) {
+        return proTimeSlotService.createRule(rule);
+    }
+
+    @ApiOperation(value = "Delete a weekly time slot rule")
+    @DeleteMapping("/rules/{ruleId}")
+    public void deleteRule(@PathVariable final Integer ruleId) {
+        proTimeSlotService.deleteRule(ruleId);
+    }
+
+    @ApiOperation(value = "Exclude a day from a weekly time slot rule", notes = "e.g. a bank holiday or a day off")
+    @PostMapping("/rules/{ruleId}/exclusions")
+    public TimeSlotRuleExclusion excludeDate(@PathVariable final Integer ruleId,
+                                             @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) final LocalDate date) {
+        return proTimeSlotService.excludeDate(ruleId, date);
+    }
+}
@@ -0,0 +1,17 @@
+package com.maiia.pro.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Value;
+
+import java.time.LocalDateTime;
+
+//read-only appointment, built by constructor queries and by the in-memory time index
+@Value
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class AppointmentView {
+    Integer id;
+    Integer patientId;
+    Integer practitionerId;
+    LocalDateTime startDate;
+    LocalDateTime endDate;
+}
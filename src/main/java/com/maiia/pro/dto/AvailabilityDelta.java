@@ -0,0 +1,14 @@
+package com.maiia.pro.dto;
+
+import com.maiia.pro.entity.Availability;
+import lombok.Value;
+
+import java.util.List;
+
+//net change of a practitioner's availabilities since the previous frame of its event stream
+@Value
+public class AvailabilityDelta {
+    Integer practitionerId;
+    List<Availability> added;
+    List<Integer> removed;
+}
@@ -0,0 +1,12 @@
+package com.maiia.pro.dto;
+
+import com.maiia.pro.entity.BookingRule;
+import lombok.Value;
+
+//a created or deleted booking rule, with the regeneration of the practitioners it applies to
+@Value
+public class BookingRuleChange {
+    BookingRule rule;
+    //still running when the change is returned, null when no practitioner is affected
+    GenerationProgress generation;
+}
@@ -0,0 +1,14 @@
+package com.maiia.pro.dto;
+
+import lombok.Value;
+
+@Value
+public class CacheStatistics {
+    long size;
+    long hitCount;
+    long missCount;
+    double hitRate;
+    long evictionCount;
+    long loadCount;
+    double averageLoadPenaltyMillis;
+}
@@ -0,0 +1,26 @@
+package com.maiia.pro.dto;
+
+import lombok.Value;
+
+import java.time.LocalDate;
+
+@Value
+public class DailyUtilisation {
+    LocalDate day;
+    long openMinutes;
+    long bookedMinutes;
+    //open minutes left to book, 0 when appointments run outside the time slots
+    long freeMinutes;
+    long appointments;
+    double fillRate;
+
+    //read straight from the rollup rows, summed over practitioners for a speciality
+    public DailyUtilisation(LocalDate day, long openMinutes, long bookedMinutes, long appointments) {
+        this.day = day;
+        this.openMinutes = openMinutes;
+        this.bookedMinutes = bookedMinutes;
+        this.freeMinutes = Math.max(0, openMinutes - bookedMinutes);
+        this.appointments = appointments;
+        this.fillRate = openMinutes == 0 ? 0 : (double) bookedMinutes / openMinutes;
+    }
+}
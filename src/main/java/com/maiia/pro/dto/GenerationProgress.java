@@ -0,0 +1,75 @@
+package com.maiia.pro.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+//live progress of a bulk availability generation, shared by its workers
+public class GenerationProgress {
+    private final long id;
+    private final int total;
+    private final AtomicInteger completed = new AtomicInteger();
+    private final AtomicInteger failed = new AtomicInteger();
+    private final Instant startedAt = Instant.now();
+    private volatile Instant finishedAt;
+    @JsonIgnore
+    private final CountDownLatch remaining;
+
+    public GenerationProgress(long id, int total) {
+        this.id = id;
+        this.total = total;
+        this.remaining = new CountDownLatch(total);
+        if (total == 0) {
+            finishedAt = startedAt;
+        }
+    }
+
+    //returns the number of practitioners processed so far
+    public int practitionerDone(boolean succeeded) {
+        (succeeded ? completed : failed).incrementAndGet();
+        remaining.countDown();
+        if (remaining.getCount() == 0) {
+            finishedAt = Instant.now();
+        }
+        return completed.get() + failed.get();
+    }
+
+    public void await() throws InterruptedException {
+        remaining.await();
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public int getTotal() {
+        return total;
+    }
+
+    public int getCompleted() {
+        return completed.get();
+    }
+
+    public int getFailed() {
+        return failed.get();
+    }
+
+    public boolean isDone() {
+        return remaining.getCount() == 0;
+    }
+
+    public Instant getStartedAt() {
+        return startedAt;
+    }
+
+    public Instant getFinishedAt() {
+        return finishedAt;
+    }
+
+    public long getElapsedMillis() {
+        return Duration.between(startedAt, finishedAt != null ? finishedAt : Instant.now()).toMillis();
+    }
+}
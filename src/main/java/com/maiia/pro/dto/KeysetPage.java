@@ -0,0 +1,31 @@
+package com.maiia.pro.dto;
+
+import lombok.Value;
+
+import java.util.List;
+import java.util.function.Function;
+
+@Value
+public class KeysetPage<T> {
+    public static final int DEFAULT_LIMIT = 100;
+    public static final int MAX_LIMIT = 1000;
+
+    List<T> items;
+    //id to pass as "after" to get the next page, null on the last page
+    Integer nextCursor;
+
+    public static int clamp(int limit) {
+        return Math.min(Math.max(limit, 1), MAX_LIMIT);
+    }
+
+    /**
+     * Builds a page from rows fetched with one extra row beyond the limit, which tells whether a next page exists.
+     */
+    public static <T> KeysetPage<T> of(List<T> rows, int limit, Function<T, Integer> idExtractor) {
+        if (rows.size() <= limit) {
+            return new KeysetPage<>(rows, null);
+        }
+        List<T> items = rows.subList(0, limit);
+        return new KeysetPage<>(items, idExtractor.apply(items.get(limit - 1)));
+    }
+}
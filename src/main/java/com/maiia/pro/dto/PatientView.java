@@ -0,0 +1,13 @@
+package com.maiia.pro.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Value;
+
+//read-only projection of a patient, selected column by column so no entity is hydrated or tracked
+@Value
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class PatientView {
+    Integer id;
+    String firstName;
+    String lastName;
+}
@@ -0,0 +1,14 @@
+package com.maiia.pro.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Value;
+
+//speciality is left out of the json when it is not set
+@Value
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class PractitionerView {
+    Integer id;
+    String firstName;
+    String lastName;
+    String speciality;
+}
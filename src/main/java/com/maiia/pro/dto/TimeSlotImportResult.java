@@ -0,0 +1,23 @@
+package com.maiia.pro.dto;
+
+import lombok.Value;
+
+import java.util.List;
+
+@Value
+public class TimeSlotImportResult {
+    //non blank lines read from the upload
+    int rows;
+    int rejected;
+    int inserted;
+    //stored time slots widened to absorb overlapping rows
+    int extended;
+    //stored time slots merged into a neighbour
+    int removed;
+    //rows already covered by a stored time slot
+    int unchanged;
+    //first rejection reasons, prefixed by their line number
+    List<String> errors;
+    //regeneration of the practitioners whose time slots changed, still running when the import returns
+    GenerationProgress generation;
+}
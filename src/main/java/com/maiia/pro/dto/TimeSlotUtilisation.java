@@ -0,0 +1,17 @@
+package com.maiia.pro.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Value;
+
+import java.time.LocalDateTime;
+
+@Value
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class TimeSlotUtilisation {
+    //null for the occurrences of a weekly rule, which carry the rule id instead
+    Integer timeSlotId;
+    Integer ruleId;
+    LocalDateTime startDate;
+    LocalDateTime endDate;
+    Utilisation utilisation;
+}
@@ -0,0 +1,15 @@
+package com.maiia.pro.dto;
+
+import lombok.Value;
+
+@Value
+public class Utilisation {
+    long openMinutes;
+    long bookedMinutes;
+    //booked share of the open minutes, 0 when the practitioner is not working
+    double fillRate;
+
+    public static Utilisation of(long openMinutes, long bookedMinutes) {
+        return new Utilisation(openMinutes, bookedMinutes, openMinutes == 0 ? 0 : (double) bookedMinutes / openMinutes);
+    }
+}
@@ -0,0 +1,29 @@
+package com.maiia.pro.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.Table;
+import java.time.LocalDateTime;
+
+//cold copy of a past appointment, moved out of the hot table by the nightly archival
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(indexes = @Index(name = "idx_archived_appointment_practitioner_start", columnList = "practitionerId, startDate"))
+public class ArchivedAppointment {
+    //the id of the appointment it was archived from
+    @Id
+    private Integer id;
+    private Integer patientId;
+    private Integer practitionerId;
+    private LocalDateTime startDate;
+    private LocalDateTime endDate;
+}
@@ -0,0 +1,36 @@
+package com.maiia.pro.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.SequenceGenerator;
+import javax.persistence.Table;
+import javax.persistence.UniqueConstraint;
+
+//slot length, buffer and notice of a practitioner or of a whole speciality; unset values fall back to the next level
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(uniqueConstraints = {
+        @UniqueConstraint(name = "uk_booking_rule_practitioner", columnNames = "practitionerId"),
+        @UniqueConstraint(name = "uk_booking_rule_speciality", columnNames = "speciality")})
+public class BookingRule {
+    @Id
+    @GeneratedValue(strategy= GenerationType.SEQUENCE, generator = "booking_rule_sequence")
+    @SequenceGenerator(name = "booking_rule_sequence", allocationSize = 50)
+    private Integer id;
+    //exactly one of practitionerId and speciality is set
+    private Integer practitionerId;
+    private String speciality;
+    private Integer slotMinutes;
+    private Integer bufferMinutes;
+    private Integer minimumNoticeMinutes;
+}
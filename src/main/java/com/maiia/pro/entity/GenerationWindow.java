@@ -0,0 +1,25 @@
+package com.maiia.pro.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import java.time.LocalDateTime;
+
+//the span of a practitioner's calendar whose availabilities are stored, one row per practitioner
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+public class GenerationWindow {
+    @Id
+    private Integer practitionerId;
+    //availabilities ending before were pruned, null until the first pruning
+    private LocalDateTime generatedFrom;
+    //availabilities starting from there are only generated when a query asks for them
+    private LocalDateTime generatedUntil;
+}
@@ -9,6 +9,7 @@ import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
+import javax.persistence.SequenceGenerator;
 import java.time.LocalDate;
 
 @Data
@@ -18,7 +19,8 @@ import java.time.LocalDate;
 @Entity
 public class Patient {
     @Id
-    @GeneratedValue(strategy= GenerationType.AUTO)
+    @GeneratedValue(strategy= GenerationType.SEQUENCE, generator = "patient_sequence")
+    @SequenceGenerator(name = "patient_sequence", allocationSize = 50)
     private Integer id;
     private String firstName;
     private String lastName;
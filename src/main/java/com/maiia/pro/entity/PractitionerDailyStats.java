@@ -0,0 +1,34 @@
+package com.maiia.pro.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.SequenceGenerator;
+import javax.persistence.Table;
+import javax.persistence.UniqueConstraint;
+import java.time.LocalDate;
+
+//daily rollup of a practitioner's calendar, kept up to date by every booking, cancellation and time slot change
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(uniqueConstraints = @UniqueConstraint(name = "uk_practitioner_daily_stats_practitioner_day", columnNames = {"practitionerId", "day"}))
+public class PractitionerDailyStats {
+    @Id
+    @GeneratedValue(strategy= GenerationType.SEQUENCE, generator = "practitioner_daily_stats_sequence")
+    @SequenceGenerator(name = "practitioner_daily_stats_sequence", allocationSize = 50)
+    private Integer id;
+    private Integer practitionerId;
+    private LocalDate day;
+    private long openMinutes;
+    private long bookedMinutes;
+    private long appointments;
+}
@@ -9,6 +9,11 @@ import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
 import javax.persistence.GenerationType;
 import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.SequenceGenerator;
+import javax.persistence.Table;
+import javax.persistence.Transient;
+import javax.persistence.Version;
 import java.time.LocalDateTime;
 
 @Data
@@ -16,11 +21,19 @@ import java.time.LocalDateTime;
 @NoArgsConstructor
 @AllArgsConstructor
 @Entity
+@Table(indexes = @Index(name = "idx_time_slot_practitioner_start", columnList = "practitionerId, startDate"))
 public class TimeSlot {
     @Id
-    @GeneratedValue(strategy= GenerationType.AUTO)
+    @GeneratedValue(strategy= GenerationType.SEQUENCE, generator = "time_slot_sequence")
+    @SequenceGenerator(name = "time_slot_sequence", allocationSize = 50)
     private Integer id;
     private Integer practitionerId;
     private LocalDateTime startDate;
     private LocalDateTime endDate;
+    //bumped by every booking inside the slot, so concurrent bookings on different nodes conflict
+    @Version
+    private Long version;
+    //set on the occurrences expanded from a time slot rule, which have no id
+    @Transient
+    private Integer ruleId;
 }
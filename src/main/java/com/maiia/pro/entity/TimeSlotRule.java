@@ -0,0 +1,45 @@
+package com.maiia.pro.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.Entity;
+import javax.persistence.EnumType;
+import javax.persistence.Enumerated;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.SequenceGenerator;
+import javax.persistence.Table;
+import javax.persistence.Version;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+//weekly recurring time slot, e.g. every monday from 9H to 12H, expanded into time slots only for the queried window
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(indexes = @Index(name = "idx_time_slot_rule_practitioner", columnList = "practitionerId"))
+public class TimeSlotRule {
+    @Id
+    @GeneratedValue(strategy= GenerationType.SEQUENCE, generator = "time_slot_rule_sequence")
+    @SequenceGenerator(name = "time_slot_rule_sequence", allocationSize = 50)
+    private Integer id;
+    private Integer practitionerId;
+    @Enumerated(EnumType.STRING)
+    private DayOfWeek dayOfWeek;
+    private LocalTime startTime;
+    private LocalTime endTime;
+    private LocalDate validFrom;
+    //open ended when null
+    private LocalDate validUntil;
+    //bumped by every booking inside one of its occurrences, like the version of a time slot
+    @Version
+    private Long version;
+}
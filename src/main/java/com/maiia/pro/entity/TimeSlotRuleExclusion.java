@@ -0,0 +1,31 @@
+package com.maiia.pro.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.persistence.SequenceGenerator;
+import javax.persistence.Table;
+import javax.persistence.UniqueConstraint;
+import java.time.LocalDate;
+
+//a day on which a time slot rule does not apply, e.g. a bank holiday
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(uniqueConstraints = @UniqueConstraint(name = "uk_time_slot_rule_exclusion_rule_date", columnNames = {"ruleId", "excludedDate"}))
+public class TimeSlotRuleExclusion {
+    @Id
+    @GeneratedValue(strategy= GenerationType.SEQUENCE, generator = "time_slot_rule_exclusion_sequence")
+    @SequenceGenerator(name = "time_slot_rule_exclusion_sequence", allocationSize = 50)
+    private Integer id;
+    private Integer ruleId;
+    private LocalDate excludedDate;
+}
@@ -0,0 +1,11 @@
+package com.maiia.pro.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.CONFLICT)
+public class AppointmentConflictException extends RuntimeException {
+    public AppointmentConflictException(String errorMessage) {
+        super(errorMessage);
+    }
+}
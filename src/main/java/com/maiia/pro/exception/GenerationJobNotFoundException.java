@@ -0,0 +1,11 @@
+package com.maiia.pro.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.NOT_FOUND)
+public class GenerationJobNotFoundException extends RuntimeException {
+    public GenerationJobNotFoundException(String errorMessage) {
+        super(errorMessage);
+    }
+}
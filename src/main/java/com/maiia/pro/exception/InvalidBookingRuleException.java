@@ -0,0 +1,11 @@
+package com.maiia.pro.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.BAD_REQUEST)
+public class InvalidBookingRuleException extends RuntimeException {
+    public InvalidBookingRuleException(String errorMessage) {
+        super(errorMessage);
+    }
+}
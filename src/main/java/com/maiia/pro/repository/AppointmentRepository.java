@@ -1,14 +1,50 @@
 package com.maiia.pro.repository;
 
+import com.maiia.pro.dto.AppointmentView;
 import com.maiia.pro.entity.Appointment;
-import com.maiia.pro.entity.Patient;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
-public interface AppointmentRepository extends CrudRepository<Appointment, String> {
-    List<Appointment> findByPractitionerId(String practitionerId);
-    List<Appointment> findAll();
+public interface AppointmentRepository extends CrudRepository<Appointment, Integer> {
+    List<Appointment> findByPractitionerId(Integer practitionerId);
+
+    @Query("select a from Appointment a where a.practitionerId = :practitionerId and a.startDate >= :from and a.startDate < :to order by a.startDate")
+    List<Appointment> findByPractitionerIdBetween(@Param("practitionerId") Integer practitionerId, @Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    List<Appointment> findByPractitionerIdAndStartDateLessThanAndEndDateGreaterThan(Integer practitionerId, LocalDateTime endDate, LocalDateTime startDate);
+    boolean existsByPractitionerIdAndStartDateLessThanAndEndDateGreaterThan(Integer practitionerId, LocalDateTime endDate, LocalDateTime startDate);
+
+    @Query("select distinct a.practitionerId from Appointment a where a.endDate <= :before")
+    List<Integer> findPractitionerIdsEndingBefore(@Param("before") LocalDateTime before);
+
+    @Modifying
+    @Query("delete from Appointment a where a.practitionerId = :practitionerId and a.endDate <= :before")
+    int deleteByPractitionerIdEndingBefore(@Param("practitionerId") Integer practitionerId, @Param("before") LocalDateTime before);
+
+    String VIEW = "select new com.maiia.pro.dto.AppointmentView(a.id, a.patientId, a.practitionerId, a.startDate, a.endDate) from Appointment a";
+
+    @Query(VIEW + " where a.practitionerId = :practitionerId order by a.startDate")
+    List<AppointmentView> findViewsByPractitionerId(@Param("practitionerId") Integer practitionerId);
+
+    @Query(VIEW + " where a.practitionerId = :practitionerId and a.startDate >= :from and a.startDate < :to order by a.startDate")
+    List<AppointmentView> findViewsByPractitionerIdBetween(@Param("practitionerId") Integer practitionerId, @Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    @Query(VIEW + " order by a.id")
+    List<AppointmentView> findAllViews();
+
+    @Query(VIEW + " where a.id > :after order by a.id")
+    List<AppointmentView> findViewsAfter(@Param("after") Integer after, Pageable pageable);
+
+    @StreamedQuery
+    @Query(VIEW + " order by a.id")
+    Stream<AppointmentView> streamAllViews();
 }
@@ -0,0 +1,23 @@
+package com.maiia.pro.repository;
+
+import com.maiia.pro.entity.ArchivedAppointment;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface ArchivedAppointmentRepository extends CrudRepository<ArchivedAppointment, Integer> {
+    List<ArchivedAppointment> findByPractitionerId(Integer practitionerId);
+
+    //copied in the database, the rows never travel through the application
+    @Modifying
+    @Query("insert into ArchivedAppointment (id, patientId, practitionerId, startDate, endDate)"
+            + " select a.id, a.patientId, a.practitionerId, a.startDate, a.endDate from Appointment a"
+            + " where a.practitionerId = :practitionerId and a.endDate <= :before")
+    int copyEndingBefore(@Param("practitionerId") Integer practitionerId, @Param("before") LocalDateTime before);
+}
@@ -1,12 +1,34 @@
 package com.maiia.pro.repository;
 
 import com.maiia.pro.entity.Availability;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
-public interface AvailabilityRepository extends CrudRepository<Availability, String> {
+public interface AvailabilityRepository extends CrudRepository<Availability, Integer> {
     List<Availability> findByPractitionerId(Integer id);
+    List<Availability> findByPractitionerIdIn(Collection<Integer> practitionerIds);
+
+    @Query("select a from Availability a where a.practitionerId = :practitionerId and a.startDate >= :from and a.startDate < :to order by a.startDate")
+    List<Availability> findByPractitionerIdBetween(@Param("practitionerId") Integer practitionerId, @Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    List<Availability> findByPractitionerIdAndStartDateLessThanAndEndDateGreaterThan(Integer practitionerId, LocalDateTime endDate, LocalDateTime startDate);
+
+    @Modifying
+    @Query("delete from Availability a where a.id in :ids")
+    void deleteByIdIn(@Param("ids") Collection<Integer> ids);
+
+    @Query("select distinct a.practitionerId from Availability a where a.endDate <= :before")
+    List<Integer> findPractitionerIdsEndingBefore(@Param("before") LocalDateTime before);
+
+    @Modifying
+    @Query("delete from Availability a where a.practitionerId = :practitionerId and a.endDate <= :before")
+    int deleteByPractitionerIdEndingBefore(@Param("practitionerId") Integer practitionerId, @Param("before") LocalDateTime before);
 }
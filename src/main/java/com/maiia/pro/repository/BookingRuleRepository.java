@@ -0,0 +1,21 @@
+package com.maiia.pro.repository;
+
+import com.maiia.pro.entity.BookingRule;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface BookingRuleRepository extends CrudRepository<BookingRule, Integer> {
+    List<BookingRule> findAll();
+
+    Optional<BookingRule> findByPractitionerId(Integer practitionerId);
+
+    Optional<BookingRule> findBySpeciality(String speciality);
+
+    boolean existsByPractitionerId(Integer practitionerId);
+
+    boolean existsBySpeciality(String speciality);
+}
@@ -0,0 +1,16 @@
+package com.maiia.pro.repository;
+
+import com.maiia.pro.entity.GenerationWindow;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface GenerationWindowRepository extends CrudRepository<GenerationWindow, Integer> {
+    @Query("select w.practitionerId from GenerationWindow w where w.generatedUntil < :until order by w.practitionerId")
+    List<Integer> findPractitionerIdsGeneratedUntilBefore(@Param("until") LocalDateTime until);
+}
@@ -1,12 +1,29 @@
 package com.maiia.pro.repository;
 
+import com.maiia.pro.dto.PatientView;
 import com.maiia.pro.entity.Patient;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
-public interface PatientRepository extends CrudRepository<Patient, String> {
+public interface PatientRepository extends CrudRepository<Patient, Integer> {
     List<Patient> findAll();
+
+    String VIEW = "select new com.maiia.pro.dto.PatientView(p.id, p.firstName, p.lastName) from Patient p";
+
+    @Query(VIEW + " order by p.id")
+    List<PatientView> findAllViews();
+
+    @Query(VIEW + " where p.id > :after order by p.id")
+    List<PatientView> findViewsAfter(@Param("after") Integer after, Pageable pageable);
+
+    @StreamedQuery
+    @Query(VIEW + " order by p.id")
+    Stream<PatientView> streamAllViews();
 }
@@ -0,0 +1,36 @@
+package com.maiia.pro.repository;
+
+import com.maiia.pro.dto.DailyUtilisation;
+import com.maiia.pro.entity.PractitionerDailyStats;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface PractitionerDailyStatsRepository extends CrudRepository<PractitionerDailyStats, Integer> {
+    List<PractitionerDailyStats> findByPractitionerId(Integer practitionerId);
+
+    Optional<PractitionerDailyStats> findByPractitionerIdAndDay(Integer practitionerId, LocalDate day);
+
+    //an in-place increment, so concurrent bookings on other nodes are never lost
+    @Modifying
+    @Query("update PractitionerDailyStats s set s.bookedMinutes = s.bookedMinutes + :minutes, s.appointments = s.appointments + :appointments"
+            + " where s.practitionerId = :practitionerId and s.day = :day")
+    int addBooked(@Param("practitionerId") Integer practitionerId, @Param("day") LocalDate day,
+                  @Param("minutes") long minutes, @Param("appointments") long appointments);
+
+    @Query("select new com.maiia.pro.dto.DailyUtilisation(s.day, s.openMinutes, s.bookedMinutes, s.appointments) from PractitionerDailyStats s"
+            + " where s.practitionerId = :practitionerId and s.day >= :from and s.day < :to order by s.day")
+    List<DailyUtilisation> findDailyByPractitionerId(@Param("practitionerId") Integer practitionerId, @Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    @Query("select new com.maiia.pro.dto.DailyUtilisation(s.day, sum(s.openMinutes), sum(s.bookedMinutes), sum(s.appointments))"
+            + " from PractitionerDailyStats s, Practitioner p where p.id = s.practitionerId and p.speciality = :speciality"
+            + " and s.day >= :from and s.day < :to group by s.day order by s.day")
+    List<DailyUtilisation> findDailyBySpeciality(@Param("speciality") String speciality, @Param("from") LocalDate from, @Param("to") LocalDate to);
+}
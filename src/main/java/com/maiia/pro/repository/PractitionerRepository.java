@@ -1,13 +1,35 @@
 package com.maiia.pro.repository;
 
+import com.maiia.pro.dto.PractitionerView;
 import com.maiia.pro.entity.Practitioner;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
-public interface PractitionerRepository extends CrudRepository<Practitioner, String> {
+public interface PractitionerRepository extends CrudRepository<Practitioner, Integer> {
     List<Practitioner> findAll();
 
+    @Query("select p.id from Practitioner p order by p.id")
+    List<Integer> findAllIds();
+
+    @Query("select p.id from Practitioner p where p.speciality = :speciality")
+    List<Integer> findIdsBySpeciality(@Param("speciality") String speciality);
+
+    String VIEW = "select new com.maiia.pro.dto.PractitionerView(p.id, p.firstName, p.lastName, p.speciality) from Practitioner p";
+
+    @Query(VIEW + " order by p.id")
+    List<PractitionerView> findAllViews();
+
+    @Query(VIEW + " where p.id > :after order by p.id")
+    List<PractitionerView> findViewsAfter(@Param("after") Integer after, Pageable pageable);
+
+    @StreamedQuery
+    @Query(VIEW + " order by p.id")
+    Stream<PractitionerView> streamAllViews();
 }
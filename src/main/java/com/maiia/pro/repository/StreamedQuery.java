@@ -0,0 +1,21 @@
+package com.maiia.pro.repository;
+
+import org.springframework.data.jpa.repository.QueryHints;
+
+import javax.persistence.QueryHint;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a query returning a {@link java.util.stream.Stream} over a whole table: rows are fetched from the cursor
+ * 500 at a time rather than all at once. Such queries select constructor projections, which are never attached,
+ * so the persistence context stays empty however many rows are walked. Callers close the stream inside a read-only
+ * transaction.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@QueryHints(@QueryHint(name = "org.hibernate.fetchSize", value = "500"))
+public @interface StreamedQuery {
+}
@@ -1,12 +1,20 @@
 package com.maiia.pro.repository;
 
 import com.maiia.pro.entity.TimeSlot;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Repository
-public interface TimeSlotRepository extends CrudRepository<TimeSlot, String> {
-    List<TimeSlot> findByPractitionerId(String practitionerId);
+public interface TimeSlotRepository extends CrudRepository<TimeSlot, Integer> {
+    List<TimeSlot> findByPractitionerId(Integer practitionerId);
+
+    @Query("select t from TimeSlot t where t.practitionerId = :practitionerId and t.startDate < :to and t.endDate > :from order by t.startDate")
+    List<TimeSlot> findByPractitionerIdBetween(@Param("practitionerId") Integer practitionerId, @Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    List<TimeSlot> findByPractitionerIdAndStartDateLessThanEqualAndEndDateGreaterThanEqual(Integer practitionerId, LocalDateTime endDate, LocalDateTime startDate);
 }
@@ -0,0 +1,20 @@
+package com.maiia.pro.repository;
+
+import com.maiia.pro.entity.TimeSlotRuleExclusion;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface TimeSlotRuleExclusionRepository extends CrudRepository<TimeSlotRuleExclusion, Integer> {
+    List<TimeSlotRuleExclusion> findByRuleIdIn(Collection<Integer> ruleIds);
+
+    @Modifying
+    @Query("delete from TimeSlotRuleExclusion e where e.ruleId = :ruleId")
+    void deleteByRuleId(@Param("ruleId") Integer ruleId);
+}
@@ -0,0 +1,12 @@
+package com.maiia.pro.repository;
+
+import com.maiia.pro.entity.TimeSlotRule;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface TimeSlotRuleRepository extends CrudRepository<TimeSlotRule, Integer> {
+    List<TimeSlotRule> findByPractitionerId(Integer practitionerId);
+}
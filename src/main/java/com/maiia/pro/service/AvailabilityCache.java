@@ -0,0 +1,114 @@
+package com.maiia.pro.service;
+
+import com.github.benmanes.caffeine.cache.CacheLoader;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.maiia.pro.dto.CacheStatistics;
+import com.maiia.pro.entity.Availability;
+import com.maiia.pro.entity.GenerationWindow;
+import com.maiia.pro.repository.AvailabilityRepository;
+import com.maiia.pro.repository.GenerationWindowRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Read-through cache of the availabilities of each practitioner, bounded by the total number of cached
+ * availabilities and by a time to live. Writers invalidate a practitioner once their transaction has committed.
+ */
+@Component
+public class AvailabilityCache {
+
+    @Autowired
+    private AvailabilityRepository availabilityRepository;
+
+    @Autowired
+    private GenerationWindowRepository generationWindowRepository;
+
+    @Autowired
+    private PractitionerVersions practitionerVersions;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${pro.availability.cache.maximum-availabilities:1000000}")
+    private long maximumAvailabilities;
+
+    @Value("${pro.availability.cache.time-to-live:10m}")
+    private Duration timeToLive;
+
+    private LoadingCache<Integer, PractitionerCalendar> calendars;
+
+    @PostConstruct
+    void init() {
+        calendars = Caffeine.newBuilder()
+                .maximumWeight(maximumAvailabilities)
+                .weigher((Integer practitionerId, PractitionerCalendar calendar) -> calendar.size() + 1)
+                .expireAfterWrite(timeToLive)
+                .recordStats()
+                .build(new CacheLoader<Integer, PractitionerCalendar>() {
+                    @Override
+                    public PractitionerCalendar load(Integer practitionerId) {
+                        //the reload may bring writes of other nodes, which must not keep the stamp of the old entry
+                        practitionerVersions.bump(practitionerId);
+                        return PractitionerCalendar.of(practitionerId, availabilityRepository.findByPractitionerId(practitionerId),
+                                generationWindowRepository.findById(practitionerId).map(GenerationWindow::getGeneratedUntil).orElse(null));
+                    }
+
+                    //all the misses of a bulk read are loaded with a single query per table
+                    @Override
+                    public Map<Integer, PractitionerCalendar> loadAll(Iterable<? extends Integer> practitionerIds) {
+                        Map<Integer, List<Availability>> availabilities = new HashMap<>();
+                        practitionerIds.forEach(practitionerId -> {
+                            practitionerVersions.bump(practitionerId);
+                            availabilities.put(practitionerId, new ArrayList<>());
+                        });
+                        for (Availability availability : availabilityRepository.findByPractitionerIdIn(availabilities.keySet())) {
+                            availabilities.get(availability.getPractitionerId()).add(availability);
+                        }
+                        Map<Integer, LocalDateTime> generatedUntil = new HashMap<>();
+                        generationWindowRepository.findAllById(availabilities.keySet())
+                                .forEach(window -> generatedUntil.put(window.getPractitionerId(), window.getGeneratedUntil()));
+                        Map<Integer, PractitionerCalendar> loaded = new HashMap<>();
+                        availabilities.forEach((practitionerId, rows) -> loaded.put(practitionerId,
+                                PractitionerCalendar.of(practitionerId, rows, generatedUntil.get(practitionerId))));
+                        return loaded;
+                    }
+                });
+        CaffeineCacheMetrics.monitor(meterRegistry, calendars, "availabilities");
+    }
+
+    public PractitionerCalendar get(Integer practitionerId) {
+        return calendars.get(practitionerId);
+    }
+
+    public Map<Integer, PractitionerCalendar> getAll(Collection<Integer> practitionerIds) {
+        return calendars.getAll(practitionerIds);
+    }
+
+    //invalidating before the commit would let a concurrent read cache the old rows again
+    public void invalidateAfterCommit(Integer practitionerId) {
+        TransactionCallbacks.afterCommit(() -> {
+            calendars.invalidate(practitionerId);
+            practitionerVersions.bump(practitionerId);
+        });
+    }
+
+    public CacheStatistics getStatistics() {
+        CacheStats stats = calendars.stats();
+        return new CacheStatistics(calendars.estimatedSize(), stats.hitCount(), stats.missCount(), stats.hitRate(),
+                stats.evictionCount(), stats.loadCount(), stats.averageLoadPenalty() / 1_000_000d);
+    }
+}
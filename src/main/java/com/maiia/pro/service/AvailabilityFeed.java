@@ -0,0 +1,120 @@
+package com.maiia.pro.service;
+
+import com.maiia.pro.dto.AvailabilityDelta;
+import com.maiia.pro.entity.Availability;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArraySet;
+
+/**
+ * Server-sent event streams of availability changes, one per practitioner and subscriber.
+ * Committed changes are coalesced per practitioner and flushed as a single frame every flush interval,
+ * so a burst of bookings costs one frame per subscriber, and an availability added then removed in
+ * the same interval is never sent at all. Changes of practitioners nobody listens to are dropped right away.
+ */
+@Component
+public class AvailabilityFeed {
+    static final String EVENT_NAME = "availabilities";
+
+    private final Map<Integer, Set<SseEmitter>> subscribers = new ConcurrentHashMap<>();
+    private final Map<Integer, PendingDelta> pending = new ConcurrentHashMap<>();
+
+    @Value("${pro.availability.feed.timeout:30m}")
+    private Duration timeout;
+
+    public SseEmitter subscribe(Integer practitionerId) {
+        SseEmitter emitter = new SseEmitter(timeout.toMillis());
+        subscribers.compute(practitionerId, (id, emitters) -> {
+            Set<SseEmitter> practitionerEmitters = emitters != null ? emitters : new CopyOnWriteArraySet<>();
+            practitionerEmitters.add(emitter);
+            return practitionerEmitters;
+        });
+        emitter.onCompletion(() -> unsubscribe(practitionerId, emitter));
+        emitter.onTimeout(() -> unsubscribe(practitionerId, emitter));
+        emitter.onError(e -> unsubscribe(practitionerId, emitter));
+        return emitter;
+    }
+
+    public void publishAfterCommit(Integer practitionerId, Collection<Availability> added, Collection<Integer> removed) {
+        if (!subscribers.containsKey(practitionerId)) {
+            return;
+        }
+        TransactionCallbacks.afterCommit(() -> pending.compute(practitionerId,
+                (id, delta) -> (delta != null ? delta : new PendingDelta()).merge(added, removed)));
+    }
+
+    @Scheduled(fixedDelayString = "${pro.availability.feed.flush-interval-millis:500}")
+    public void flush() {
+        for (Integer practitionerId : pending.keySet()) {
+            PendingDelta delta = pending.remove(practitionerId);
+            Set<SseEmitter> emitters = subscribers.get(practitionerId);
+            if (delta == null || delta.isEmpty() || emitters == null) {
+                continue;
+            }
+            AvailabilityDelta frame = new AvailabilityDelta(practitionerId, new ArrayList<>(delta.added.values()), new ArrayList<>(delta.removed));
+            for (SseEmitter emitter : emitters) {
+                send(practitionerId, emitter, SseEmitter.event().name(EVENT_NAME).data(frame, MediaType.APPLICATION_JSON));
+            }
+        }
+    }
+
+    //keeps idle streams open through proxies and detects the subscribers that went away
+    @Scheduled(fixedDelayString = "${pro.availability.feed.heartbeat-interval-millis:15000}")
+    public void heartbeat() {
+        subscribers.forEach((practitionerId, emitters) -> {
+            for (SseEmitter emitter : emitters) {
+                send(practitionerId, emitter, SseEmitter.event().comment("heartbeat"));
+            }
+        });
+    }
+
+    private void send(Integer practitionerId, SseEmitter emitter, SseEmitter.SseEventBuilder event) {
+        try {
+            emitter.send(event);
+        } catch (IOException | IllegalStateException e) {
+            unsubscribe(practitionerId, emitter);
+            emitter.completeWithError(e);
+        }
+    }
+
+    private void unsubscribe(Integer practitionerId, SseEmitter emitter) {
+        subscribers.computeIfPresent(practitionerId, (id, emitters) -> {
+            emitters.remove(emitter);
+            return emitters.isEmpty() ? null : emitters;
+        });
+    }
+
+    private static final class PendingDelta {
+        private final Map<Integer, Availability> added = new LinkedHashMap<>();
+        private final Set<Integer> removed = new LinkedHashSet<>();
+
+        private PendingDelta merge(Collection<Availability> addedAvailabilities, Collection<Integer> removedIds) {
+            for (Integer id : removedIds) {
+                if (added.remove(id) == null) {
+                    removed.add(id);
+                }
+            }
+            for (Availability availability : addedAvailabilities) {
+                added.put(availability.getId(), availability);
+            }
+            return this;
+        }
+
+        private boolean isEmpty() {
+            return added.isEmpty() && removed.isEmpty();
+        }
+    }
+}
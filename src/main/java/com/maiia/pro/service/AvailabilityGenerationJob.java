@@ -0,0 +1,145 @@
+package com.maiia.pro.service;
+
+import com.maiia.pro.dto.GenerationProgress;
+import com.maiia.pro.repository.PractitionerRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.Lock;
+import java.util.function.Consumer;
+
+/**
+ * Regenerates the availabilities of many practitioners on a bounded worker pool.
+ * Every practitioner is generated in its own transaction, so a failure only loses that practitioner.
+ * All jobs share the one pool, so concurrent jobs queue behind each other instead of adding workers.
+ * Like the lookup pool, it is deliberately not exposed as an Executor bean.
+ */
+@Service
+public class AvailabilityGenerationJob {
+
+    private final Logger log = LoggerFactory.getLogger(AvailabilityGenerationJob.class);
+
+    @Autowired
+    private PractitionerRepository practitionerRepository;
+
+    @Autowired
+    private ProAvailabilityService proAvailabilityService;
+
+    @Autowired
+    private PractitionerLocks practitionerLocks;
+
+    @Value("${pro.availability.generation.workers:4}")
+    private int workers;
+
+    @Value("${pro.availability.generation.kept-jobs:20}")
+    private int keptJobs;
+
+    private GenerationProgress progress;
+
+    private long lastJobId;
+
+    //the most recent jobs by id, so callers handed a job id can poll it
+    private final Map<Long, GenerationProgress> jobs = new LinkedHashMap<Long, GenerationProgress>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, GenerationProgress> eldest) {
+            return size() > keptJobs;
+        }
+    };
+
+    private ThreadPoolTaskExecutor executor;
+
+    @PostConstruct
+    void init() {
+        executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(workers);
+        executor.setMaxPoolSize(workers);
+        executor.setThreadNamePrefix("availability-generation-");
+        executor.initialize();
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdown();
+    }
+
+    public synchronized GenerationProgress getProgress() {
+        return progress;
+    }
+
+    public GenerationProgress start() {
+        return start(practitionerRepository.findAllIds());
+    }
+
+    //a job already running is returned as is rather than started twice
+    public synchronized GenerationProgress start(List<Integer> practitionerIds) {
+        if (progress != null && !progress.isDone()) {
+            return progress;
+        }
+        return launchGeneration(practitionerIds);
+    }
+
+    public synchronized GenerationProgress getProgress(long jobId) {
+        return jobs.get(jobId);
+    }
+
+    //queues the given practitioners behind any running job and returns at once
+    public synchronized GenerationProgress submit(List<Integer> practitionerIds) {
+        return launchGeneration(practitionerIds);
+    }
+
+    //moves the window of the given practitioners up to the given date, on the same workers as the generations
+    public synchronized GenerationProgress extend(List<Integer> practitionerIds, LocalDateTime until) {
+        return launch("extension", practitionerIds, practitionerId -> proAvailabilityService.extendAvailabilities(practitionerId, until));
+    }
+
+    //blocking variant of submit, for callers that need the availabilities before going on
+    public GenerationProgress generate(List<Integer> practitionerIds) throws InterruptedException {
+        GenerationProgress launched = submit(practitionerIds);
+        launched.await();
+        return launched;
+    }
+
+    private GenerationProgress launchGeneration(List<Integer> practitionerIds) {
+        progress = launch("generation", practitionerIds, proAvailabilityService::generateAvailabilities);
+        return progress;
+    }
+
+    private GenerationProgress launch(String kind, List<Integer> practitionerIds, Consumer<Integer> task) {
+        GenerationProgress jobProgress = new GenerationProgress(++lastJobId, practitionerIds.size());
+        jobs.put(jobProgress.getId(), jobProgress);
+        log.info("Availability {} job {}: {} practitioners on {} workers", kind, jobProgress.getId(), practitionerIds.size(), workers);
+        int logStep = Math.max(1, practitionerIds.size() / 10);
+        for (Integer practitionerId : practitionerIds) {
+            executor.execute(() -> {
+                boolean succeeded = false;
+                //concurrent jobs may reach the same practitioner, and a booking must not interleave with them
+                Lock lock = practitionerLocks.lockFor(practitionerId);
+                lock.lock();
+                try {
+                    task.accept(practitionerId);
+                    succeeded = true;
+                } catch (RuntimeException e) {
+                    log.error("Availability " + kind + " failed for practitioner " + practitionerId, e);
+                } finally {
+                    lock.unlock();
+                    int done = jobProgress.practitionerDone(succeeded);
+                    if (done % logStep == 0 || done == jobProgress.getTotal()) {
+                        log.info("Availability {} job {}: {}/{} practitioners done, {} failed, {} ms",
+                                kind, jobProgress.getId(), done, jobProgress.getTotal(), jobProgress.getFailed(), jobProgress.getElapsedMillis());
+                    }
+                }
+            });
+        }
+        return jobProgress;
+    }
+}
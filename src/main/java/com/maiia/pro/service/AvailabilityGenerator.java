@@ -0,0 +1,95 @@
+package com.maiia.pro.service;
+
+import com.maiia.pro.entity.Appointment;
+import com.maiia.pro.entity.Availability;
+import com.maiia.pro.entity.TimeSlot;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Computes the free slots of a practitioner in a single sweep over its time slots and appointments.
+ * Both inputs are sorted once by start date, so the cost is O((n + m) log(n + m)) whatever the density.
+ * The sweep itself runs on packed {@link Intervals} and allocates nothing; entities are only converted at the edges.
+ * The practitioner's {@link SlotRules} are applied inside the sweep: the slot length sets the grid and the buffer widens
+ * every appointment on both sides. The minimum notice depends on the clock, so it is applied on read instead.
+ */
+@Component
+public class AvailabilityGenerator {
+
+    public List<Availability> generate(Integer practitionerId, List<TimeSlot> timeSlots, List<Appointment> appointments, SlotRules rules) {
+        IntervalBuffer openIntervals = new IntervalBuffer(timeSlots.size());
+        for (TimeSlot timeSlot : timeSlots) {
+            openIntervals.add(Intervals.toMinute(timeSlot.getStartDate()), Intervals.toMinute(timeSlot.getEndDate()));
+        }
+        IntervalBuffer bookedIntervals = new IntervalBuffer(appointments.size());
+        for (Appointment appointment : appointments) {
+            bookedIntervals.add(Intervals.toMinute(appointment.getStartDate()), Intervals.toMinute(appointment.getEndDate()));
+        }
+        IntervalBuffer freeIntervals = new IntervalBuffer(timeSlots.size() * 16);
+        generate(openIntervals, bookedIntervals, freeIntervals, rules);
+
+        List<Availability> availabilities = new ArrayList<>(freeIntervals.size());
+        for (int i = 0; i < freeIntervals.size(); i++) {
+            availabilities.add(Availability.builder()
+                    .practitionerId(practitionerId)
+                    .startDate(Intervals.toDateTime(freeIntervals.start(i)))
+                    .endDate(Intervals.toDateTime(freeIntervals.end(i)))
+                    .build());
+        }
+        return availabilities;
+    }
+
+    /**
+     * Fills {@code freeIntervals} with the slots of the open intervals that no booked interval overlaps.
+     * Both inputs are sorted in place.
+     */
+    public void generate(IntervalBuffer openIntervals, IntervalBuffer bookedIntervals, IntervalBuffer freeIntervals, SlotRules rules) {
+        openIntervals.sort();
+        bookedIntervals.sort();
+        freeIntervals.clear();
+        int slotMinutes = rules.getSlotMinutes();
+        int bufferMinutes = rules.getBufferMinutes();
+        int next = 0;
+        int openStart = 0;
+        int openEnd = 0;
+        boolean open = false;
+        for (int i = 0; i < openIntervals.size(); i++) {
+            //overlapping or adjacent time slots are merged so the appointment cursor only moves forward
+            if (open && openIntervals.start(i) <= openEnd) {
+                openEnd = Math.max(openEnd, openIntervals.end(i));
+                continue;
+            }
+            if (open) {
+                next = fill(openStart, openEnd, bookedIntervals, next, freeIntervals, slotMinutes, bufferMinutes);
+            }
+            openStart = openIntervals.start(i);
+            openEnd = openIntervals.end(i);
+            open = true;
+        }
+        if (open) {
+            fill(openStart, openEnd, bookedIntervals, next, freeIntervals, slotMinutes, bufferMinutes);
+        }
+    }
+
+    private int fill(int start, int end, IntervalBuffer bookedIntervals, int next, IntervalBuffer freeIntervals,
+                     int slotMinutes, int bufferMinutes) {
+        int cursor = start;
+        while (cursor < end) {
+            //booked intervals are sorted by start, so the ones already behind the cursor never matter again
+            while (next < bookedIntervals.size() && bookedIntervals.end(next) + bufferMinutes <= cursor) {
+                next++;
+            }
+            int slotEnd = Math.min(cursor + slotMinutes, end);
+            if (next < bookedIntervals.size() && bookedIntervals.start(next) - bufferMinutes < slotEnd) {
+                //the slot collides with an appointment or its buffer: restart the grid right after them
+                cursor = bookedIntervals.end(next) + bufferMinutes;
+                continue;
+            }
+            freeIntervals.add(cursor, slotEnd);
+            cursor = slotEnd;
+        }
+        return next;
+    }
+}
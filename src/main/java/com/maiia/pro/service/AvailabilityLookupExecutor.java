@@ -0,0 +1,52 @@
+package com.maiia.pro.service;
+
+import com.maiia.pro.exception.ServiceBusyException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+/**
+ * Bounded pool running the asynchronous availability lookups, so that a burst waits here instead of holding
+ * servlet threads. Once its queue is full, new lookups fail fast with a 503 rather than piling up.
+ * It is deliberately not exposed as an Executor bean, which would replace the auto-configured task executor.
+ */
+@Component
+public class AvailabilityLookupExecutor {
+
+    @Value("${pro.availability.async.threads:16}")
+    private int threads;
+
+    @Value("${pro.availability.async.queue-capacity:500}")
+    private int queueCapacity;
+
+    private ThreadPoolTaskExecutor executor;
+
+    @PostConstruct
+    void init() {
+        executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("availability-lookup-");
+        executor.initialize();
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdown();
+    }
+
+    public <T> CompletableFuture<T> supply(Supplier<T> lookup) {
+        try {
+            return CompletableFuture.supplyAsync(lookup, executor);
+        } catch (TaskRejectedException e) {
+            throw new ServiceBusyException("Too many availability lookups in progress, retry later");
+        }
+    }
+}
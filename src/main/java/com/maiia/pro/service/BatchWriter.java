@@ -0,0 +1,38 @@
+package com.maiia.pro.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.List;
+
+/**
+ * Persists new entities in chunks of the JDBC batch size, so each chunk goes out as one batched insert.
+ * The persistence context is flushed and cleared after every chunk to keep its size bounded on large imports.
+ * The written entities use pooled sequences with an allocation size of 50: one round trip hands out the ids of
+ * a whole chunk, where an identity column would force Hibernate to insert rows one by one to read their ids back.
+ */
+@Component
+public class BatchWriter {
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:50}")
+    private int batchSize;
+
+    @Transactional
+    public <T> List<T> insertAll(List<T> entities) {
+        for (int i = 0; i < entities.size(); i++) {
+            entityManager.persist(entities.get(i));
+            if ((i + 1) % batchSize == 0) {
+                entityManager.flush();
+                entityManager.clear();
+            }
+        }
+        entityManager.flush();
+        entityManager.clear();
+        return entities;
+    }
+}
@@ -0,0 +1,82 @@
+package com.maiia.pro.service;
+
+import com.maiia.pro.dto.GenerationProgress;
+import com.maiia.pro.repository.AppointmentRepository;
+import com.maiia.pro.repository.AvailabilityRepository;
+import com.maiia.pro.repository.GenerationWindowRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.Period;
+import java.util.List;
+
+/**
+ * Nightly upkeep of the hot tables: moves the generation horizon forward every day, prunes the past availabilities
+ * and archives the appointments older than the retention into the cold table.
+ * Like the generation job, every practitioner is handled in its own transaction.
+ * The roll runs on the generation workers, so it neither holds a scheduler thread nor outgrows the generation pool.
+ */
+@Service
+public class CalendarMaintenanceJob {
+
+    private final Logger log = LoggerFactory.getLogger(CalendarMaintenanceJob.class);
+
+    @Autowired
+    private ProAvailabilityService proAvailabilityService;
+
+    @Autowired
+    private ProAppointmentService proAppointmentService;
+
+    @Autowired
+    private AvailabilityGenerationJob availabilityGenerationJob;
+
+    @Autowired
+    private GenerationWindowRepository generationWindowRepository;
+
+    @Autowired
+    private AvailabilityRepository availabilityRepository;
+
+    @Autowired
+    private AppointmentRepository appointmentRepository;
+
+    @Value("${pro.archive.appointment-retention:30d}")
+    private Period appointmentRetention;
+
+    @Scheduled(cron = "${pro.availability.generation.roll-cron:0 0 1 * * *}")
+    public void rollHorizon() {
+        LocalDateTime horizon = proAvailabilityService.rollingHorizon();
+        List<Integer> practitionerIds = generationWindowRepository.findPractitionerIdsGeneratedUntilBefore(horizon);
+        GenerationProgress progress = availabilityGenerationJob.extend(practitionerIds, horizon);
+        log.info("Moving the availability horizon to {} for {} practitioners in job {}", horizon, practitionerIds.size(), progress.getId());
+    }
+
+    @Scheduled(cron = "${pro.archive.cron:0 30 2 * * *}")
+    public void archive() {
+        //today's availabilities are kept until tomorrow's run, whether already passed or not
+        LocalDateTime today = LocalDate.now().atStartOfDay();
+        int pruned = 0;
+        for (Integer practitionerId : availabilityRepository.findPractitionerIdsEndingBefore(today)) {
+            try {
+                pruned += proAvailabilityService.pruneAvailabilities(practitionerId, today);
+            } catch (RuntimeException e) {
+                log.error("Availability pruning failed for practitioner " + practitionerId, e);
+            }
+        }
+        LocalDateTime cutoff = LocalDate.now().minus(appointmentRetention).atStartOfDay();
+        int archived = 0;
+        for (Integer practitionerId : appointmentRepository.findPractitionerIdsEndingBefore(cutoff)) {
+            try {
+                archived += proAppointmentService.archiveAppointments(practitionerId, cutoff);
+            } catch (RuntimeException e) {
+                log.error("Appointment archival failed for practitioner " + practitionerId, e);
+            }
+        }
+        log.info("Pruned {} availabilities ended before {}, archived {} appointments ended before {}", pruned, today, archived, cutoff);
+    }
+}
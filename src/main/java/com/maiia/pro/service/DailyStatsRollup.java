@@ -0,0 +1,180 @@
+package com.maiia.pro.service;
+
+import com.maiia.pro.entity.Appointment;
+import com.maiia.pro.entity.PractitionerDailyStats;
+import com.maiia.pro.entity.TimeSlot;
+import com.maiia.pro.repository.AppointmentRepository;
+import com.maiia.pro.repository.PractitionerDailyStatsRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.Period;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Maintains the {@link PractitionerDailyStats} rollup inside the transactions that change a calendar:
+ * a booking or a cancellation adds its minutes to the days it spans, a time slot change recomputes the days it touches,
+ * and a full availability generation rebuilds the practitioner from the calendar it has already read.
+ * Statistics are then read from the rollup alone, without ever scanning appointments.
+ * Past the archive retention, appointments may have left the hot table: the booked figures stored for those days are kept.
+ */
+@Component
+public class DailyStatsRollup {
+    private static final int MINUTES_PER_DAY = 24 * 60;
+    private static final int OPEN = 0;
+    private static final int BOOKED = 1;
+    private static final int APPOINTMENTS = 2;
+
+    @Autowired
+    private PractitionerDailyStatsRepository practitionerDailyStatsRepository;
+
+    @Autowired
+    private PractitionerTimeSlots practitionerTimeSlots;
+
+    @Autowired
+    private AppointmentRepository appointmentRepository;
+
+    @Value("${pro.archive.appointment-retention:30d}")
+    private Period appointmentRetention;
+
+    void appointmentBooked(Appointment appointment) {
+        addBooked(appointment, 1);
+    }
+
+    void appointmentCancelled(Appointment appointment) {
+        addBooked(appointment, -1);
+    }
+
+    //rule occurrences before from were not read: the days already rolled up there are kept, the others are added
+    void rebuild(Integer practitionerId, LocalDate from, List<TimeSlot> timeSlots, List<Appointment> appointments) {
+        Map<LocalDate, long[]> days = tally(timeSlots, appointments);
+        LocalDate archivedBefore = archivedBefore();
+        Map<LocalDate, PractitionerDailyStats> stored = practitionerDailyStatsRepository.findByPractitionerId(practitionerId).stream()
+                .collect(Collectors.toMap(PractitionerDailyStats::getDay, Function.identity()));
+        List<LocalDate> kept = stored.keySet().stream().filter(day -> day.isBefore(from)).collect(Collectors.toList());
+        stored.keySet().removeAll(kept);
+        days.keySet().removeAll(kept);
+        List<PractitionerDailyStats> changed = new ArrayList<>();
+        days.forEach((day, totals) -> {
+            PractitionerDailyStats stats = stored.remove(day);
+            if (stats == null) {
+                stats = PractitionerDailyStats.builder().practitionerId(practitionerId).day(day).build();
+            } else if (day.isBefore(archivedBefore)) {
+                keepBooked(stats, totals);
+            }
+            if (update(stats, totals)) {
+                changed.add(stats);
+            }
+        });
+        //days left without time slots or appointments
+        List<PractitionerDailyStats> emptied = new ArrayList<>();
+        for (PractitionerDailyStats stats : stored.values()) {
+            long[] totals = new long[3];
+            if (stats.getDay().isBefore(archivedBefore) && stats.getAppointments() > 0) {
+                keepBooked(stats, totals);
+                if (update(stats, totals)) {
+                    changed.add(stats);
+                }
+            } else {
+                emptied.add(stats);
+            }
+        }
+        practitionerDailyStatsRepository.saveAll(changed);
+        practitionerDailyStatsRepository.deleteAll(emptied);
+    }
+
+    //recomputes [firstDay, lastDay] from the stored calendar, e.g. after the time slots of those days changed
+    void refreshDays(Integer practitionerId, LocalDate firstDay, LocalDate lastDay) {
+        Map<LocalDate, long[]> days = tally(
+                practitionerTimeSlots.findByPractitionerIdTouching(practitionerId, firstDay.atStartOfDay(), lastDay.plusDays(1).atStartOfDay()),
+                appointmentRepository.findByPractitionerIdAndStartDateLessThanAndEndDateGreaterThan(practitionerId, lastDay.plusDays(1).atStartOfDay(), firstDay.atStartOfDay()));
+        LocalDate archivedBefore = archivedBefore();
+        for (LocalDate day = firstDay; !day.isAfter(lastDay); day = day.plusDays(1)) {
+            long[] totals = days.getOrDefault(day, new long[3]);
+            PractitionerDailyStats stats = practitionerDailyStatsRepository.findByPractitionerIdAndDay(practitionerId, day).orElse(null);
+            if (stats == null && totals[OPEN] == 0 && totals[BOOKED] == 0) {
+                continue;
+            }
+            if (stats == null) {
+                stats = PractitionerDailyStats.builder().practitionerId(practitionerId).day(day).build();
+            } else if (day.isBefore(archivedBefore)) {
+                keepBooked(stats, totals);
+            }
+            if (update(stats, totals)) {
+                practitionerDailyStatsRepository.save(stats);
+            }
+        }
+    }
+
+    private void addBooked(Appointment appointment, int sign) {
+        Map<LocalDate, long[]> days = tally(List.of(), List.of(appointment));
+        days.forEach((day, totals) -> {
+            if (practitionerDailyStatsRepository.addBooked(appointment.getPractitionerId(), day, sign * totals[BOOKED], sign * totals[APPOINTMENTS]) == 0) {
+                //the day was never rolled up: build it from the calendar, which already includes this change
+                refreshDays(appointment.getPractitionerId(), day, day);
+            }
+        });
+    }
+
+    //appointments ending before that day may already be archived, see ProAppointmentService#archiveAppointments
+    private LocalDate archivedBefore() {
+        return LocalDate.now().minus(appointmentRetention);
+    }
+
+    private static void keepBooked(PractitionerDailyStats stats, long[] totals) {
+        totals[BOOKED] = stats.getBookedMinutes();
+        totals[APPOINTMENTS] = stats.getAppointments();
+    }
+
+    private static boolean update(PractitionerDailyStats stats, long[] totals) {
+        if (stats.getId() != null && stats.getOpenMinutes() == totals[OPEN] && stats.getBookedMinutes() == totals[BOOKED]
+                && stats.getAppointments() == totals[APPOINTMENTS]) {
+            return false;
+        }
+        stats.setOpenMinutes(totals[OPEN]);
+        stats.setBookedMinutes(totals[BOOKED]);
+        stats.setAppointments(totals[APPOINTMENTS]);
+        return true;
+    }
+
+    //open, booked minutes and appointments per day; appointments are counted on the day they start
+    private static Map<LocalDate, long[]> tally(List<TimeSlot> timeSlots, List<Appointment> appointments) {
+        Map<LocalDate, long[]> days = new TreeMap<>();
+        IntervalBuffer openIntervals = new IntervalBuffer(timeSlots.size());
+        for (TimeSlot timeSlot : timeSlots) {
+            openIntervals.add(Intervals.toMinute(timeSlot.getStartDate()), Intervals.toMinute(timeSlot.getEndDate()));
+        }
+        addMinutes(days, openIntervals, OPEN);
+        IntervalBuffer bookedIntervals = new IntervalBuffer(appointments.size());
+        for (Appointment appointment : appointments) {
+            bookedIntervals.add(Intervals.toMinute(appointment.getStartDate()), Intervals.toMinute(appointment.getEndDate()));
+            days.computeIfAbsent(appointment.getStartDate().toLocalDate(), day -> new long[3])[APPOINTMENTS]++;
+        }
+        addMinutes(days, bookedIntervals, BOOKED);
+        return days;
+    }
+
+    //splits the intervals at midnight; minutes covered by several intervals are counted once
+    private static void addMinutes(Map<LocalDate, long[]> days, IntervalBuffer intervals, int field) {
+        intervals.sort();
+        int coveredUntil = Integer.MIN_VALUE;
+        for (int i = 0; i < intervals.size(); i++) {
+            int start = Math.max(intervals.start(i), coveredUntil);
+            int end = intervals.end(i);
+            while (start < end) {
+                long epochDay = Math.floorDiv(start, MINUTES_PER_DAY);
+                int sliceEnd = (int) Math.min(end, (epochDay + 1) * MINUTES_PER_DAY);
+                days.computeIfAbsent(LocalDate.ofEpochDay(epochDay), day -> new long[3])[field] += sliceEnd - start;
+                start = sliceEnd;
+            }
+            coveredUntil = Math.max(coveredUntil, end);
+        }
+    }
+}
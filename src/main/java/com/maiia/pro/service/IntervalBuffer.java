@@ -0,0 +1,46 @@
+package com.maiia.pro.service;
+
+import java.util.Arrays;
+
+/**
+ * Growable array of packed {@link Intervals}, meant to be reused between computations so that they allocate nothing.
+ */
+public final class IntervalBuffer {
+    private long[] intervals;
+    private int size;
+
+    public IntervalBuffer(int capacity) {
+        intervals = new long[Math.max(capacity, 8)];
+    }
+
+    public void add(int start, int end) {
+        if (size == intervals.length) {
+            intervals = Arrays.copyOf(intervals, size * 2);
+        }
+        intervals[size++] = Intervals.pack(start, end);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int start(int index) {
+        return Intervals.start(intervals[index]);
+    }
+
+    public int end(int index) {
+        return Intervals.end(intervals[index]);
+    }
+
+    public void sort() {
+        Arrays.sort(intervals, 0, size);
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    public long[] toArray() {
+        return Arrays.copyOf(intervals, size);
+    }
+}
@@ -0,0 +1,52 @@
+package com.maiia.pro.service;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * Primitive encoding of the minute-grained intervals of a calendar: start and end in epoch minutes are packed
+ * in one long, start in the high half, so that sorting the longs sorts the intervals by start then end date.
+ */
+public final class Intervals {
+
+    private Intervals() {
+    }
+
+    public static long pack(int start, int end) {
+        return ((long) start << 32) | (end & 0xFFFFFFFFL);
+    }
+
+    public static int start(long interval) {
+        return (int) (interval >> 32);
+    }
+
+    public static int end(long interval) {
+        return (int) interval;
+    }
+
+    //date times are read as UTC: only differences between them matter, and UTC has no daylight saving gaps
+    public static int toMinute(LocalDateTime dateTime) {
+        return Math.toIntExact(Math.floorDiv(dateTime.toEpochSecond(ZoneOffset.UTC), 60));
+    }
+
+    public static LocalDateTime toDateTime(int minute) {
+        return LocalDateTime.ofEpochSecond(minute * 60L, 0, ZoneOffset.UTC);
+    }
+
+    //index of the first of the sorted intervals starting at or after the given minute
+    public static int firstStartingFrom(long[] intervals, int size, int minute) {
+        //every interval starting at that minute packs to at least this value
+        long key = (long) minute << 32;
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (intervals[middle] < key) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+}
@@ -0,0 +1,95 @@
+package com.maiia.pro.service;
+
+import com.maiia.pro.entity.Availability;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Immutable, compact copy of the availabilities of one practitioner: packed {@link Intervals} sorted by start date
+ * and their ids, 12 bytes per availability, searched by binary search.
+ */
+public final class PractitionerCalendar {
+    private final Integer practitionerId;
+    private final int[] ids;
+    private final long[] intervals;
+    //null when the practitioner's availabilities were never generated
+    private final LocalDateTime generatedUntil;
+
+    private PractitionerCalendar(Integer practitionerId, int[] ids, long[] intervals, LocalDateTime generatedUntil) {
+        this.practitionerId = practitionerId;
+        this.ids = ids;
+        this.intervals = intervals;
+        this.generatedUntil = generatedUntil;
+    }
+
+    public static PractitionerCalendar of(Integer practitionerId, List<Availability> availabilities) {
+        return of(practitionerId, availabilities, null);
+    }
+
+    public static PractitionerCalendar of(Integer practitionerId, List<Availability> availabilities, LocalDateTime generatedUntil) {
+        List<Availability> sorted = new ArrayList<>(availabilities);
+        sorted.sort(Comparator.comparing(Availability::getStartDate));
+        int size = sorted.size();
+        int[] ids = new int[size];
+        long[] intervals = new long[size];
+        for (int i = 0; i < size; i++) {
+            Availability availability = sorted.get(i);
+            ids[i] = availability.getId();
+            intervals[i] = Intervals.pack(Intervals.toMinute(availability.getStartDate()), Intervals.toMinute(availability.getEndDate()));
+        }
+        return new PractitionerCalendar(practitionerId, ids, intervals, generatedUntil);
+    }
+
+    public Integer getPractitionerId() {
+        return practitionerId;
+    }
+
+    public LocalDateTime getGeneratedUntil() {
+        return generatedUntil;
+    }
+
+    public int size() {
+        return ids.length;
+    }
+
+    public int firstStartingFrom(LocalDateTime dateTime) {
+        return Intervals.firstStartingFrom(intervals, intervals.length, Intervals.toMinute(dateTime));
+    }
+
+    public int startMinute(int index) {
+        return Intervals.start(intervals[index]);
+    }
+
+    public Availability get(int index) {
+        return Availability.builder()
+                .id(ids[index])
+                .practitionerId(practitionerId)
+                .startDate(Intervals.toDateTime(Intervals.start(intervals[index])))
+                .endDate(Intervals.toDateTime(Intervals.end(intervals[index])))
+                .build();
+    }
+
+    public List<Availability> toAvailabilities() {
+        return slice(0, ids.length);
+    }
+
+    public List<Availability> startingFrom(LocalDateTime from) {
+        return slice(firstStartingFrom(from), ids.length);
+    }
+
+    //availabilities starting in [from, to)
+    public List<Availability> between(LocalDateTime from, LocalDateTime to) {
+        return slice(firstStartingFrom(from), firstStartingFrom(to));
+    }
+
+    private List<Availability> slice(int from, int to) {
+        List<Availability> availabilities = new ArrayList<>(Math.max(0, to - from));
+        for (int i = from; i < to; i++) {
+            availabilities.add(get(i));
+        }
+        return availabilities;
+    }
+}
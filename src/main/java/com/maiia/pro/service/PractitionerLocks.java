@@ -0,0 +1,37 @@
+package com.maiia.pro.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Fixed set of locks shared by all practitioners: bookings of one practitioner are serialized in this process
+ * while bookings of practitioners on different stripes run in parallel, without one lock object per practitioner.
+ */
+@Component
+public class PractitionerLocks {
+
+    @Value("${pro.booking.lock-stripes:64}")
+    private int stripeCount;
+
+    private Lock[] stripes;
+
+    @PostConstruct
+    void init() {
+        //a power of two lets the stripe be picked with a mask
+        int size = Integer.highestOneBit(Math.max(1, stripeCount - 1)) << 1;
+        stripes = new Lock[size];
+        for (int i = 0; i < size; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+    }
+
+    public Lock lockFor(Integer practitionerId) {
+        int hash = practitionerId.hashCode();
+        hash ^= hash >>> 16;
+        return stripes[hash & (stripes.length - 1)];
+    }
+}
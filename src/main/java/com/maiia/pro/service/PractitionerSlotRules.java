@@ -0,0 +1,67 @@
+package com.maiia.pro.service;
+
+import com.maiia.pro.entity.BookingRule;
+import com.maiia.pro.entity.Practitioner;
+import com.maiia.pro.repository.BookingRuleRepository;
+import com.maiia.pro.repository.PractitionerRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Resolves the {@link SlotRules} of each practitioner: every value comes from the practitioner's own booking rule,
+ * else from its speciality's, else from the defaults. Resolved rules are kept in memory, as every generation and
+ * booking needs them and they hardly ever change; any rule change drops them all.
+ */
+@Component
+public class PractitionerSlotRules {
+    @Autowired
+    private BookingRuleRepository bookingRuleRepository;
+
+    @Autowired
+    private PractitionerRepository practitionerRepository;
+
+    @Value("${pro.booking.slot-minutes:15}")
+    private int slotMinutes;
+
+    @Value("${pro.booking.buffer-minutes:0}")
+    private int bufferMinutes;
+
+    @Value("${pro.booking.minimum-notice-minutes:0}")
+    private int minimumNoticeMinutes;
+
+    private final Map<Integer, SlotRules> rules = new ConcurrentHashMap<>();
+
+    public SlotRules get(Integer practitionerId) {
+        return rules.computeIfAbsent(practitionerId, this::resolve);
+    }
+
+    void clear() {
+        rules.clear();
+    }
+
+    //a speciality rule changes the rules of many practitioners, so nothing is worth keeping
+    void invalidateAllAfterCommit() {
+        TransactionCallbacks.afterCommit(rules::clear);
+    }
+
+    private SlotRules resolve(Integer practitionerId) {
+        BookingRule own = bookingRuleRepository.findByPractitionerId(practitionerId).orElse(null);
+        //looked up apart: a null speciality would match every practitioner rule
+        BookingRule shared = practitionerRepository.findById(practitionerId)
+                .map(Practitioner::getSpeciality)
+                .flatMap(bookingRuleRepository::findBySpeciality)
+                .orElse(null);
+        return new SlotRules(
+                pick(own != null ? own.getSlotMinutes() : null, shared != null ? shared.getSlotMinutes() : null, slotMinutes),
+                pick(own != null ? own.getBufferMinutes() : null, shared != null ? shared.getBufferMinutes() : null, bufferMinutes),
+                pick(own != null ? own.getMinimumNoticeMinutes() : null, shared != null ? shared.getMinimumNoticeMinutes() : null, minimumNoticeMinutes));
+    }
+
+    private static int pick(Integer own, Integer shared, int fallback) {
+        return own != null ? own : shared != null ? shared : fallback;
+    }
+}
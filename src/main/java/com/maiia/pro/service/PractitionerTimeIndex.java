@@ -0,0 +1,238 @@
+package com.maiia.pro.service;
+
+import com.maiia.pro.dto.AppointmentView;
+import com.maiia.pro.entity.Appointment;
+import com.maiia.pro.entity.TimeSlot;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Immutable in-memory index of the time slots and appointments of one practitioner, answering overlap, free slot
+ * and utilisation questions in O(log n) by binary search over sorted packed {@link Intervals}:
+ * <ul>
+ *     <li>time slots and appointments are each merged into disjoint intervals with prefix sums of their minutes,</li>
+ *     <li>appointments are also kept one by one, sorted by start with the running maximum of their ends,
+ *     so that the ones overlapping a window form a contiguous range even if some of them overlap each other.</li>
+ * </ul>
+ */
+public final class PractitionerTimeIndex {
+    private final Integer practitionerId;
+    private final long[] open;
+    private final long[] openMinutesBefore;
+    private final long[] busy;
+    private final long[] busyMinutesBefore;
+    private final long[] appointments;
+    private final int[] appointmentIds;
+    private final int[] patientIds;
+    private final int[] maxEnds;
+
+    private PractitionerTimeIndex(Integer practitionerId, long[] open, long[] busy,
+                                  long[] appointments, int[] appointmentIds, int[] patientIds) {
+        this.practitionerId = practitionerId;
+        this.open = open;
+        this.openMinutesBefore = minutesBefore(open);
+        this.busy = busy;
+        this.busyMinutesBefore = minutesBefore(busy);
+        this.appointments = appointments;
+        this.appointmentIds = appointmentIds;
+        this.patientIds = patientIds;
+        this.maxEnds = new int[appointments.length];
+        int maxEnd = Integer.MIN_VALUE;
+        for (int i = 0; i < appointments.length; i++) {
+            maxEnd = Math.max(maxEnd, Intervals.end(appointments[i]));
+            maxEnds[i] = maxEnd;
+        }
+    }
+
+    public static PractitionerTimeIndex of(Integer practitionerId, List<TimeSlot> timeSlots, List<Appointment> appointments) {
+        IntervalBuffer openIntervals = new IntervalBuffer(timeSlots.size());
+        for (TimeSlot timeSlot : timeSlots) {
+            openIntervals.add(Intervals.toMinute(timeSlot.getStartDate()), Intervals.toMinute(timeSlot.getEndDate()));
+        }
+        List<Appointment> sorted = new ArrayList<>(appointments);
+        sorted.sort(Comparator.comparing(Appointment::getStartDate).thenComparing(Appointment::getEndDate));
+        IntervalBuffer bookedIntervals = new IntervalBuffer(sorted.size());
+        int[] appointmentIds = new int[sorted.size()];
+        int[] patientIds = new int[sorted.size()];
+        for (int i = 0; i < sorted.size(); i++) {
+            Appointment appointment = sorted.get(i);
+            bookedIntervals.add(Intervals.toMinute(appointment.getStartDate()), Intervals.toMinute(appointment.getEndDate()));
+            appointmentIds[i] = appointment.getId();
+            patientIds[i] = appointment.getPatientId() != null ? appointment.getPatientId() : 0;
+        }
+        long[] bookedArray = bookedIntervals.toArray();
+        return new PractitionerTimeIndex(practitionerId, merge(openIntervals), merge(bookedIntervals),
+                bookedArray, appointmentIds, patientIds);
+    }
+
+    //copy of the index with one more appointment, for a booking committed since the index was built
+    public PractitionerTimeIndex withAppointment(Appointment appointment) {
+        if (indexOf(appointment.getId()) >= 0) {
+            return this;
+        }
+        int start = Intervals.toMinute(appointment.getStartDate());
+        int end = Intervals.toMinute(appointment.getEndDate());
+        long interval = Intervals.pack(start, end);
+        int at = Arrays.binarySearch(appointments, interval);
+        if (at < 0) {
+            at = -at - 1;
+        }
+        int size = appointments.length + 1;
+        long[] newAppointments = new long[size];
+        int[] newAppointmentIds = new int[size];
+        int[] newPatientIds = new int[size];
+        System.arraycopy(appointments, 0, newAppointments, 0, at);
+        System.arraycopy(appointmentIds, 0, newAppointmentIds, 0, at);
+        System.arraycopy(patientIds, 0, newPatientIds, 0, at);
+        newAppointments[at] = interval;
+        newAppointmentIds[at] = appointment.getId();
+        newPatientIds[at] = appointment.getPatientId() != null ? appointment.getPatientId() : 0;
+        System.arraycopy(appointments, at, newAppointments, at + 1, size - at - 1);
+        System.arraycopy(appointmentIds, at, newAppointmentIds, at + 1, size - at - 1);
+        System.arraycopy(patientIds, at, newPatientIds, at + 1, size - at - 1);
+        IntervalBuffer busyIntervals = new IntervalBuffer(busy.length + 1);
+        for (long busyInterval : busy) {
+            busyIntervals.add(Intervals.start(busyInterval), Intervals.end(busyInterval));
+        }
+        busyIntervals.add(start, end);
+        return new PractitionerTimeIndex(practitionerId, open, merge(busyIntervals), newAppointments, newAppointmentIds, newPatientIds);
+    }
+
+    //copy of the index without the given appointment, for a cancel committed since the index was built
+    public PractitionerTimeIndex withoutAppointment(Integer appointmentId) {
+        int at = indexOf(appointmentId);
+        if (at < 0) {
+            return this;
+        }
+        int size = appointments.length - 1;
+        long[] newAppointments = new long[size];
+        int[] newAppointmentIds = new int[size];
+        int[] newPatientIds = new int[size];
+        System.arraycopy(appointments, 0, newAppointments, 0, at);
+        System.arraycopy(appointmentIds, 0, newAppointmentIds, 0, at);
+        System.arraycopy(patientIds, 0, newPatientIds, 0, at);
+        System.arraycopy(appointments, at + 1, newAppointments, at, size - at);
+        System.arraycopy(appointmentIds, at + 1, newAppointmentIds, at, size - at);
+        System.arraycopy(patientIds, at + 1, newPatientIds, at, size - at);
+        //merged intervals cannot be split again, the busy ones are rebuilt from the remaining appointments
+        IntervalBuffer busyIntervals = new IntervalBuffer(size);
+        for (long appointment : newAppointments) {
+            busyIntervals.add(Intervals.start(appointment), Intervals.end(appointment));
+        }
+        return new PractitionerTimeIndex(practitionerId, open, merge(busyIntervals), newAppointments, newAppointmentIds, newPatientIds);
+    }
+
+    public int size() {
+        return open.length + appointments.length;
+    }
+
+    //whether [start, end) lies inside the time slots and overlaps no appointment
+    public boolean isFree(LocalDateTime startDate, LocalDateTime endDate) {
+        int start = Intervals.toMinute(startDate);
+        int end = Intervals.toMinute(endDate);
+        int last = Intervals.firstStartingFrom(open, open.length, start + 1) - 1;
+        if (last < 0 || Intervals.end(open[last]) < end) {
+            return false;
+        }
+        return minutesWithin(busy, busyMinutesBefore, start, end) == 0;
+    }
+
+    public List<AppointmentView> findOverlapping(LocalDateTime startDate, LocalDateTime endDate) {
+        int start = Intervals.toMinute(startDate);
+        int end = Intervals.toMinute(endDate);
+        int to = Intervals.firstStartingFrom(appointments, appointments.length, end);
+        List<AppointmentView> overlapping = new ArrayList<>();
+        for (int i = firstMaxEndAfter(start); i < to; i++) {
+            if (Intervals.end(appointments[i]) > start) {
+                overlapping.add(new AppointmentView(appointmentIds[i], patientIds[i], practitionerId,
+                        Intervals.toDateTime(Intervals.start(appointments[i])),
+                        Intervals.toDateTime(Intervals.end(appointments[i]))));
+            }
+        }
+        return overlapping;
+    }
+
+    public long openMinutes(LocalDateTime startDate, LocalDateTime endDate) {
+        return minutesWithin(open, openMinutesBefore, Intervals.toMinute(startDate), Intervals.toMinute(endDate));
+    }
+
+    public long bookedMinutes(LocalDateTime startDate, LocalDateTime endDate) {
+        return minutesWithin(busy, busyMinutesBefore, Intervals.toMinute(startDate), Intervals.toMinute(endDate));
+    }
+
+    private int indexOf(Integer appointmentId) {
+        for (int i = 0; i < appointmentIds.length; i++) {
+            if (appointmentIds[i] == appointmentId) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private int firstMaxEndAfter(int minute) {
+        int low = 0;
+        int high = maxEnds.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (maxEnds[middle] <= minute) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    //minutes of the disjoint sorted intervals falling inside [start, end)
+    private static long minutesWithin(long[] intervals, long[] minutesBefore, int start, int end) {
+        if (start >= end) {
+            return 0;
+        }
+        //disjoint intervals sorted by start are sorted by end as well
+        int low = 0;
+        int high = intervals.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (Intervals.end(intervals[middle]) <= start) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        int to = Intervals.firstStartingFrom(intervals, intervals.length, end);
+        if (low >= to) {
+            return 0;
+        }
+        long minutes = minutesBefore[to] - minutesBefore[low];
+        minutes -= Math.max(0, start - Intervals.start(intervals[low]));
+        minutes -= Math.max(0, Intervals.end(intervals[to - 1]) - end);
+        return minutes;
+    }
+
+    private static long[] merge(IntervalBuffer intervals) {
+        intervals.sort();
+        IntervalBuffer merged = new IntervalBuffer(intervals.size());
+        int i = 0;
+        while (i < intervals.size()) {
+            int start = intervals.start(i);
+            int end = intervals.end(i++);
+            while (i < intervals.size() && intervals.start(i) <= end) {
+                end = Math.max(end, intervals.end(i++));
+            }
+            merged.add(start, end);
+        }
+        return merged.toArray();
+    }
+
+    private static long[] minutesBefore(long[] intervals) {
+        long[] minutesBefore = new long[intervals.length + 1];
+        for (int i = 0; i < intervals.length; i++) {
+            minutesBefore[i + 1] = minutesBefore[i] + Intervals.end(intervals[i]) - Intervals.start(intervals[i]);
+        }
+        return minutesBefore;
+    }
+}
@@ -0,0 +1,109 @@
+package com.maiia.pro.service;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import com.maiia.pro.entity.Appointment;
+import com.maiia.pro.repository.AppointmentRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.time.Duration;
+
+/**
+ * Read-through cache of the {@link PractitionerTimeIndex} of each practitioner, bounded by the total number of
+ * indexed intervals and by a time to live. Bookings and cancels made on this node are applied to the cached index
+ * after commit; other writers invalidate it after commit.
+ */
+@Component
+public class PractitionerTimeIndexCache {
+
+    @Autowired
+    private PractitionerTimeSlots practitionerTimeSlots;
+
+    @Autowired
+    private AppointmentRepository appointmentRepository;
+
+    @Autowired
+    private PractitionerVersions practitionerVersions;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${pro.time-index.cache.maximum-intervals:1000000}")
+    private long maximumIntervals;
+
+    @Value("${pro.time-index.cache.time-to-live:10m}")
+    private Duration timeToLive;
+
+    private LoadingCache<Integer, PractitionerTimeIndex> indexes;
+
+    @PostConstruct
+    void init() {
+        indexes = Caffeine.newBuilder()
+                .maximumWeight(maximumIntervals)
+                .weigher((Integer practitionerId, PractitionerTimeIndex index) -> index.size() + 1)
+                //applying a booking keeps the load time, so writes made on other nodes still show up within the time to live
+                .expireAfter(new Expiry<Integer, PractitionerTimeIndex>() {
+                    @Override
+                    public long expireAfterCreate(Integer practitionerId, PractitionerTimeIndex index, long currentTime) {
+                        return timeToLive.toNanos();
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(Integer practitionerId, PractitionerTimeIndex index, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+
+                    @Override
+                    public long expireAfterRead(Integer practitionerId, PractitionerTimeIndex index, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .recordStats()
+                .build(practitionerId -> {
+                    practitionerVersions.bump(practitionerId);
+                    return PractitionerTimeIndex.of(practitionerId,
+                            practitionerTimeSlots.findByPractitionerId(practitionerId),
+                            appointmentRepository.findByPractitionerId(practitionerId));
+                });
+        CaffeineCacheMetrics.monitor(meterRegistry, indexes, "time-indexes");
+    }
+
+    public PractitionerTimeIndex get(Integer practitionerId) {
+        return indexes.get(practitionerId);
+    }
+
+    //drops an entry found stale, e.g. missing a write made on another node
+    public void invalidate(Integer practitionerId) {
+        indexes.invalidate(practitionerId);
+        practitionerVersions.bump(practitionerId);
+    }
+
+    //a cached index gets the appointment without reloading the practitioner's whole history
+    public void appointmentBookedAfterCommit(Appointment appointment) {
+        TransactionCallbacks.afterCommit(() -> {
+            indexes.asMap().computeIfPresent(appointment.getPractitionerId(), (practitionerId, index) -> index.withAppointment(appointment));
+            practitionerVersions.bump(appointment.getPractitionerId());
+        });
+    }
+
+    public void appointmentCancelledAfterCommit(Appointment appointment) {
+        TransactionCallbacks.afterCommit(() -> {
+            indexes.asMap().computeIfPresent(appointment.getPractitionerId(), (practitionerId, index) -> index.withoutAppointment(appointment.getId()));
+            practitionerVersions.bump(appointment.getPractitionerId());
+        });
+    }
+
+    //time slot changes and bulk writes, which cannot be applied to the index one appointment at a time
+    public void invalidateAfterCommit(Integer practitionerId) {
+        TransactionCallbacks.afterCommit(() -> {
+            indexes.invalidate(practitionerId);
+            practitionerVersions.bump(practitionerId);
+        });
+    }
+}
@@ -0,0 +1,113 @@
+package com.maiia.pro.service;
+
+import com.maiia.pro.entity.TimeSlot;
+import com.maiia.pro.entity.TimeSlotRule;
+import com.maiia.pro.entity.TimeSlotRuleExclusion;
+import com.maiia.pro.repository.TimeSlotRepository;
+import com.maiia.pro.repository.TimeSlotRuleExclusionRepository;
+import com.maiia.pro.repository.TimeSlotRuleRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.Period;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * The time slots a practitioner works in: the stored rows plus the occurrences of its weekly {@link TimeSlotRule}s.
+ * Rules are expanded on every read, only over the requested window and never past the horizon, so nothing is materialised.
+ * Reads without a lower bound start at the archive retention, like the appointments kept in the hot table.
+ */
+@Component
+public class PractitionerTimeSlots {
+    @Autowired
+    private TimeSlotRepository timeSlotRepository;
+
+    @Autowired
+    private TimeSlotRuleRepository timeSlotRuleRepository;
+
+    @Autowired
+    private TimeSlotRuleExclusionRepository timeSlotRuleExclusionRepository;
+
+    @Value("${pro.time-slot.rule.horizon:90d}")
+    private Period horizon;
+
+    @Value("${pro.archive.appointment-retention:30d}")
+    private Period appointmentRetention;
+
+    public List<TimeSlot> findByPractitionerId(Integer practitionerId) {
+        return findByPractitionerId(practitionerId, earliestOccurrence());
+    }
+
+    //the stored time slots, plus the rule occurrences from the given day up to the horizon
+    public List<TimeSlot> findByPractitionerId(Integer practitionerId, LocalDate from) {
+        List<TimeSlot> timeSlots = timeSlotRepository.findByPractitionerId(practitionerId);
+        List<TimeSlotRule> rules = timeSlotRuleRepository.findByPractitionerId(practitionerId);
+        if (rules.isEmpty()) {
+            return timeSlots;
+        }
+        return withOccurrences(timeSlots, rules, from.atStartOfDay(), null);
+    }
+
+    //first day whose rule occurrences are read when the caller gives no lower bound
+    public LocalDate earliestOccurrence() {
+        return LocalDate.now().minus(appointmentRetention);
+    }
+
+    //time slots overlapping or touching [from, to], as the generator merges touching slots
+    public List<TimeSlot> findByPractitionerIdTouching(Integer practitionerId, LocalDateTime from, LocalDateTime to) {
+        List<TimeSlot> timeSlots = timeSlotRepository.findByPractitionerIdAndStartDateLessThanEqualAndEndDateGreaterThanEqual(practitionerId, to, from);
+        List<TimeSlotRule> rules = timeSlotRuleRepository.findByPractitionerId(practitionerId);
+        if (rules.isEmpty()) {
+            return timeSlots;
+        }
+        return withOccurrences(timeSlots, rules, from, to);
+    }
+
+    private List<TimeSlot> withOccurrences(List<TimeSlot> timeSlots, List<TimeSlotRule> rules, LocalDateTime from, LocalDateTime to) {
+        Map<Integer, Set<LocalDate>> exclusions = new HashMap<>();
+        for (TimeSlotRuleExclusion exclusion : timeSlotRuleExclusionRepository.findByRuleIdIn(rules.stream().map(TimeSlotRule::getId).collect(Collectors.toList()))) {
+            exclusions.computeIfAbsent(exclusion.getRuleId(), ruleId -> new HashSet<>()).add(exclusion.getExcludedDate());
+        }
+        LocalDate horizonEnd = LocalDate.now().plus(horizon);
+        List<TimeSlot> result = new ArrayList<>(timeSlots);
+        for (TimeSlotRule rule : rules) {
+            for (TimeSlot occurrence : expand(rule, exclusions.getOrDefault(rule.getId(), Set.of()),
+                    from.toLocalDate(), to == null || to.toLocalDate().isAfter(horizonEnd) ? horizonEnd : to.toLocalDate())) {
+                if (to == null || (!occurrence.getStartDate().isAfter(to) && !occurrence.getEndDate().isBefore(from))) {
+                    result.add(occurrence);
+                }
+            }
+        }
+        result.sort(Comparator.comparing(TimeSlot::getStartDate));
+        return result;
+    }
+
+    //occurrences of the rule on the days of [from, until] it is valid and not excluded
+    static List<TimeSlot> expand(TimeSlotRule rule, Set<LocalDate> excludedDates, LocalDate from, LocalDate until) {
+        LocalDate first = from.isBefore(rule.getValidFrom()) ? rule.getValidFrom() : from;
+        LocalDate last = rule.getValidUntil() != null && rule.getValidUntil().isBefore(until) ? rule.getValidUntil() : until;
+        List<TimeSlot> occurrences = new ArrayList<>();
+        for (LocalDate day = first.with(TemporalAdjusters.nextOrSame(rule.getDayOfWeek())); !day.isAfter(last); day = day.plusWeeks(1)) {
+            if (!excludedDates.contains(day)) {
+                occurrences.add(TimeSlot.builder()
+                        .practitionerId(rule.getPractitionerId())
+                        .startDate(day.atTime(rule.getStartTime()))
+                        .endDate(day.atTime(rule.getEndTime()))
+                        .ruleId(rule.getId())
+                        .build());
+            }
+        }
+        return occurrences;
+    }
+}
@@ -0,0 +1,67 @@
+package com.maiia.pro.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-memory version stamp of each practitioner's calendar, used as the ETag of its read endpoints so that
+ * an unchanged calendar is answered with 304 without any query. The caches bump it once they have dropped
+ * or reloaded the practitioner's entry: a stamp read before building a response can then never label stale data as new.
+ * Writes made on another node are only seen here once the cache entries expire, so the stamps also roll over
+ * every cache time to live: a 304 is never older than the data this node could have served anyway.
+ */
+@Component
+public class PractitionerVersions {
+    private static final long MINUTE_MILLIS = 60_000;
+
+    //a restart must not hand out the stamps of a previous run again
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+    private final Map<Integer, AtomicLong> versions = new ConcurrentHashMap<>();
+
+    @Value("${pro.availability.cache.time-to-live:10m}")
+    private Duration timeToLive;
+
+    @Autowired
+    private PractitionerSlotRules practitionerSlotRules;
+
+    public String etag(Integer practitionerId) {
+        return "\"" + stamp(practitionerId) + "\"";
+    }
+
+    /**
+     * The availabilities also change with the clock: the rolling horizon moves every day, and the minimum notice
+     * hides the slots starting too soon as time goes by, so the stamp moves with them.
+     */
+    public String availabilitiesEtag(Integer practitionerId) {
+        String stamp = stamp(practitionerId) + "-" + LocalDate.now().toEpochDay();
+        if (practitionerSlotRules.get(practitionerId).getMinimumNoticeMinutes() > 0) {
+            stamp += "-" + System.currentTimeMillis() / MINUTE_MILLIS;
+        }
+        return "\"" + stamp + "\"";
+    }
+
+    //practitioners are only inserted by the seeding or the snapshot restore, before this node serves requests
+    public String practitionersEtag() {
+        return "\"" + epoch + "-" + period() + "\"";
+    }
+
+    void bump(Integer practitionerId) {
+        versions.computeIfAbsent(practitionerId, id -> new AtomicLong()).incrementAndGet();
+    }
+
+    private String stamp(Integer practitionerId) {
+        AtomicLong version = versions.get(practitionerId);
+        return epoch + "-" + period() + "-" + practitionerId + "-" + (version != null ? version.get() : 0);
+    }
+
+    private long period() {
+        return System.currentTimeMillis() / timeToLive.toMillis();
+    }
+}
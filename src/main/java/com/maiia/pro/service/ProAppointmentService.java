@@ -1,26 +1,243 @@
 package com.maiia.pro.service;
 
+import com.maiia.pro.dto.AppointmentView;
+import com.maiia.pro.dto.KeysetPage;
 import com.maiia.pro.entity.Appointment;
+import com.maiia.pro.entity.ArchivedAppointment;
+import com.maiia.pro.entity.TimeSlot;
+import com.maiia.pro.entity.TimeSlotRule;
+import com.maiia.pro.exception.AppointmentConflictException;
+import com.maiia.pro.exception.InvalidAppointmentException;
 import com.maiia.pro.repository.AppointmentRepository;
+import com.maiia.pro.repository.ArchivedAppointmentRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import javax.persistence.EntityManager;
+import javax.persistence.LockModeType;
+import javax.persistence.PersistenceContext;
+import java.time.LocalDateTime;
+import java.util.Comparator;
 import java.util.List;
+import java.util.concurrent.locks.Lock;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 public class ProAppointmentService {
     @Autowired
     private AppointmentRepository appointmentRepository;
 
-    public Appointment find(String appointmentId) {
+    @Autowired
+    private PractitionerTimeSlots practitionerTimeSlots;
+
+    @Autowired
+    private ProAvailabilityService proAvailabilityService;
+
+    @Autowired
+    private PractitionerLocks practitionerLocks;
+
+    @Autowired
+    private PractitionerTimeIndexCache practitionerTimeIndexCache;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ProMetrics proMetrics;
+
+    @Autowired
+    private DailyStatsRollup dailyStatsRollup;
+
+    @Autowired
+    private ArchivedAppointmentRepository archivedAppointmentRepository;
+
+    @Autowired
+    private PractitionerSlotRules practitionerSlotRules;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    public Appointment find(Integer appointmentId) {
         return appointmentRepository.findById(appointmentId).orElseThrow();
     }
 
-    public List<Appointment> findAll() {
-        return appointmentRepository.findAll();
+    @Transactional(readOnly = true)
+    public List<AppointmentView> findAll() {
+        return appointmentRepository.findAllViews();
+    }
+
+    @Transactional(readOnly = true)
+    public KeysetPage<AppointmentView> findPage(Integer after, int limit) {
+        int size = KeysetPage.clamp(limit);
+        List<AppointmentView> appointments = appointmentRepository.findViewsAfter(after == null ? 0 : after, PageRequest.of(0, size + 1));
+        return KeysetPage.of(appointments, size, AppointmentView::getId);
+    }
+
+    @Transactional(readOnly = true)
+    public void streamAll(Consumer<AppointmentView> consumer) {
+        try (Stream<AppointmentView> appointments = appointmentRepository.streamAllViews()) {
+            appointments.forEach(consumer);
+        }
+    }
+
+    @Transactional(readOnly = true)
+    public List<AppointmentView> findByPractitionerId(Integer practitionerId) {
+        return appointmentRepository.findViewsByPractitionerId(practitionerId);
+    }
+
+    @Transactional(readOnly = true)
+    public List<AppointmentView> findByPractitionerId(Integer practitionerId, LocalDateTime from, LocalDateTime to) {
+        return appointmentRepository.findViewsByPractitionerIdBetween(practitionerId, from, to);
+    }
+
+    public List<ArchivedAppointment> findArchivedByPractitionerId(Integer practitionerId) {
+        return archivedAppointmentRepository.findByPractitionerId(practitionerId);
+    }
+
+    public List<AppointmentView> findOverlapping(Integer practitionerId, LocalDateTime from, LocalDateTime to) {
+        return practitionerTimeIndexCache.get(practitionerId).findOverlapping(from, to);
+    }
+
+    public boolean isFree(Integer practitionerId, LocalDateTime from, LocalDateTime to) {
+        return practitionerTimeIndexCache.get(practitionerId).isFree(from, to);
+    }
+
+    /**
+     * Books the appointment if its interval is inside the practitioner's time slots and free of other appointments.
+     * The in-memory time index is local to this node and may have missed a cancel made elsewhere: a rejection it suggests
+     * is confirmed against the database before answering 409, and the database is checked again inside the transaction.
+     * Bookings of a practitioner are serialized in this process by its lock stripe; across processes, the version
+     * of the booked time slots and the unique (practitionerId, startDate) constraint make the loser fail on commit.
+     */
+    public Appointment book(Appointment appointment) {
+        if (appointment.getPractitionerId() == null || appointment.getStartDate() == null || appointment.getEndDate() == null
+                || !appointment.getStartDate().isBefore(appointment.getEndDate())) {
+            throw new InvalidAppointmentException("An appointment needs a practitioner and a start date before its end date");
+        }
+        SlotRules rules = practitionerSlotRules.get(appointment.getPractitionerId());
+        LocalDateTime bookableFrom = rules.bookableFrom();
+        if (bookableFrom != null && appointment.getStartDate().isBefore(bookableFrom)) {
+            throw conflict("notice", appointment.getPractitionerId(), "The slot starts too soon to be booked");
+        }
+        //taken or closed slots, the usual outcome on a popular practitioner, are rejected without the lock nor a write transaction
+        if (!isFree(appointment.getPractitionerId(), appointment.getStartDate(), appointment.getEndDate())) {
+            checkAvailable(appointment, rules);
+            //the slot is free after all: the index is stale, and must not reject the next bookings either
+            practitionerTimeIndexCache.invalidate(appointment.getPractitionerId());
+        }
+        Lock lock = practitionerLocks.lockFor(appointment.getPractitionerId());
+        lock.lock();
+        try {
+            return transactionTemplate.execute(status -> reserve(appointment, rules));
+        } catch (OptimisticLockingFailureException | DataIntegrityViolationException e) {
+            throw conflict("concurrent", appointment.getPractitionerId(), "The slot has just been booked by someone else");
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private Appointment reserve(Appointment appointment, SlotRules rules) {
+        Integer practitionerId = appointment.getPractitionerId();
+        LocalDateTime startDate = appointment.getStartDate();
+        LocalDateTime endDate = appointment.getEndDate();
+        List<TimeSlot> timeSlots = checkAvailable(appointment, rules);
+        forceIncrementVersions(timeSlots);
+        appointment.setId(null);
+        Appointment saved = appointmentRepository.save(appointment);
+        dailyStatsRollup.appointmentBooked(saved);
+        proAvailabilityService.refreshAvailabilities(practitionerId, startDate, endDate);
+        practitionerTimeIndexCache.appointmentBookedAfterCommit(saved);
+        return saved;
+    }
+
+    //returns the time slots covering the appointment, once the database shows it can be booked
+    private List<TimeSlot> checkAvailable(Appointment appointment, SlotRules rules) {
+        Integer practitionerId = appointment.getPractitionerId();
+        LocalDateTime startDate = appointment.getStartDate();
+        LocalDateTime endDate = appointment.getEndDate();
+        List<TimeSlot> timeSlots = practitionerTimeSlots.findByPractitionerIdTouching(practitionerId, startDate, endDate);
+        if (!covers(timeSlots, startDate, endDate)) {
+            throw conflict("not-working", practitionerId, "The practitioner is not working at that time");
+        }
+        //the buffer is kept free around every appointment, on both sides
+        if (appointmentRepository.existsByPractitionerIdAndStartDateLessThanAndEndDateGreaterThan(practitionerId,
+                endDate.plusMinutes(rules.getBufferMinutes()), startDate.minusMinutes(rules.getBufferMinutes()))) {
+            throw conflict("taken", practitionerId, "The slot is already booked");
+        }
+        return timeSlots;
+    }
+
+    //other processes writing the same time slots fail on commit instead of interleaving with this change
+    private void forceIncrementVersions(List<TimeSlot> timeSlots) {
+        for (TimeSlot timeSlot : timeSlots) {
+            if (timeSlot.getId() != null) {
+                entityManager.lock(timeSlot, LockModeType.OPTIMISTIC_FORCE_INCREMENT);
+            } else {
+                //occurrences of a rule are not stored, the rule carries their version
+                entityManager.find(TimeSlotRule.class, timeSlot.getRuleId(), LockModeType.OPTIMISTIC_FORCE_INCREMENT);
+            }
+        }
+    }
+
+    private AppointmentConflictException conflict(String reason, Integer practitionerId, String message) {
+        proMetrics.appointmentConflict(reason, practitionerId);
+        return new AppointmentConflictException(message);
+    }
+
+    private boolean covers(List<TimeSlot> timeSlots, LocalDateTime startDate, LocalDateTime endDate) {
+        LocalDateTime covered = startDate;
+        for (TimeSlot timeSlot : timeSlots.stream().sorted(Comparator.comparing(TimeSlot::getStartDate)).collect(Collectors.toList())) {
+            if (timeSlot.getStartDate().isAfter(covered)) {
+                return false;
+            }
+            if (timeSlot.getEndDate().isAfter(covered)) {
+                covered = timeSlot.getEndDate();
+            }
+            if (!covered.isBefore(endDate)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    //serialized with the bookings of the practitioner exactly like book, so their availability refreshes never interleave
+    public void cancel(Integer appointmentId) {
+        Integer practitionerId = find(appointmentId).getPractitionerId();
+        Lock lock = practitionerLocks.lockFor(practitionerId);
+        lock.lock();
+        try {
+            transactionTemplate.executeWithoutResult(status -> release(appointmentId));
+        } catch (OptimisticLockingFailureException e) {
+            throw conflict("concurrent", practitionerId, "The calendar has just been changed by someone else, try again");
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void release(Integer appointmentId) {
+        //read again under the lock: a concurrent cancel may have won
+        Appointment appointment = find(appointmentId);
+        Integer practitionerId = appointment.getPractitionerId();
+        forceIncrementVersions(practitionerTimeSlots.findByPractitionerIdTouching(practitionerId, appointment.getStartDate(), appointment.getEndDate()));
+        appointmentRepository.delete(appointment);
+        dailyStatsRollup.appointmentCancelled(appointment);
+        proAvailabilityService.refreshAvailabilities(practitionerId, appointment.getStartDate(), appointment.getEndDate());
+        practitionerTimeIndexCache.appointmentCancelledAfterCommit(appointment);
     }
 
-    public List<Appointment> findByPractitionerId(String practitionerId) {
-        return appointmentRepository.findByPractitionerId(practitionerId);
+    //moves the appointments ended by the given date to the cold table; the daily rollup keeps their minutes
+    @Transactional
+    public int archiveAppointments(Integer practitionerId, LocalDateTime before) {
+        int archived = archivedAppointmentRepository.copyEndingBefore(practitionerId, before);
+        appointmentRepository.deleteByPractitionerIdEndingBefore(practitionerId, before);
+        practitionerTimeIndexCache.invalidateAfterCommit(practitionerId);
+        return archived;
     }
 }
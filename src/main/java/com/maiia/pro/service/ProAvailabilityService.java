@@ -1,18 +1,40 @@
 package com.maiia.pro.service;
 
+import com.maiia.pro.entity.Appointment;
 import com.maiia.pro.entity.Availability;
+import com.maiia.pro.entity.GenerationWindow;
+import com.maiia.pro.entity.TimeSlot;
 import com.maiia.pro.repository.AppointmentRepository;
 import com.maiia.pro.repository.AvailabilityRepository;
-import com.maiia.pro.repository.TimeSlotRepository;
+import com.maiia.pro.repository.GenerationWindowRepository;
+import com.maiia.pro.repository.PractitionerRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.Period;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
 import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.locks.Lock;
+import java.util.stream.Collectors;
 
+/**
+ * Availabilities are only stored inside the {@link GenerationWindow} of each practitioner: past ones are pruned
+ * by the nightly archival, and future ones are generated up to a rolling horizon, then further on when a query asks.
+ */
 @Service
 public class ProAvailabilityService {
 
+    private static final Comparator<Availability> INTERVAL_ORDER = Comparator.comparing(Availability::getStartDate)
+            .thenComparing(Availability::getEndDate);
+
     @Autowired
     private AvailabilityRepository availabilityRepository;
 
@@ -20,14 +42,311 @@ public class ProAvailabilityService {
     private AppointmentRepository appointmentRepository;
 
     @Autowired
-    private TimeSlotRepository timeSlotRepository;
+    private PractitionerTimeSlots practitionerTimeSlots;
+
+    @Autowired
+    private PractitionerRepository practitionerRepository;
+
+    @Autowired
+    private AvailabilityGenerator availabilityGenerator;
+
+    @Autowired
+    private AvailabilityCache availabilityCache;
+
+    @Autowired
+    private PractitionerTimeIndexCache practitionerTimeIndexCache;
+
+    @Autowired
+    private ProMetrics proMetrics;
+
+    @Autowired
+    private AvailabilityFeed availabilityFeed;
+
+    @Autowired
+    private DailyStatsRollup dailyStatsRollup;
+
+    @Autowired
+    private GenerationWindowRepository generationWindowRepository;
 
+    @Autowired
+    private PractitionerLocks practitionerLocks;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private PractitionerSlotRules practitionerSlotRules;
+
+    @Value("${pro.availability.generation.horizon:30d}")
+    private Period horizon;
+
+    @Value("${pro.availability.generation.maximum-horizon:90d}")
+    private Period maximumHorizon;
+
+    //weekly rules are only expanded up to their horizon, see PractitionerTimeSlots
+    @Value("${pro.time-slot.rule.horizon:90d}")
+    private Period ruleHorizon;
+
+    //slots within the practitioner's minimum notice are stored but never listed, see SlotRules#bookableFrom
     public List<Availability> findByPractitionerId(Integer practitionerId) {
-        return availabilityRepository.findByPractitionerId(practitionerId);
+        return proMetrics.time(ProMetrics.AVAILABILITY_LOOKUP, "all", practitionerId, () -> {
+            PractitionerCalendar calendar = availabilityCache.get(practitionerId);
+            LocalDateTime bookableFrom = practitionerSlotRules.get(practitionerId).bookableFrom();
+            return bookableFrom == null ? calendar.toAvailabilities() : calendar.startingFrom(bookableFrom);
+        });
+    }
+
+    public List<Availability> findByPractitionerId(Integer practitionerId, LocalDateTime from, LocalDateTime to) {
+        return proMetrics.time(ProMetrics.AVAILABILITY_LOOKUP, "window", practitionerId,
+                () -> calendarUntil(practitionerId, to).between(bookableFrom(practitionerId, from), to));
+    }
+
+    private LocalDateTime bookableFrom(Integer practitionerId, LocalDateTime from) {
+        LocalDateTime bookableFrom = practitionerSlotRules.get(practitionerId).bookableFrom();
+        return bookableFrom == null ? from : later(from, bookableFrom);
+    }
+
+    //extends the generation window first when the query reaches past it, up to the maximum horizon
+    private PractitionerCalendar calendarUntil(Integer practitionerId, LocalDateTime to) {
+        PractitionerCalendar calendar = availabilityCache.get(practitionerId);
+        LocalDateTime until = earlier(to, horizonEnd(maximumHorizon));
+        if (calendar.getGeneratedUntil() == null || !until.isAfter(calendar.getGeneratedUntil())) {
+            return calendar;
+        }
+        extendAvailabilities(practitionerId, until);
+        return availabilityCache.get(practitionerId);
     }
 
+    public LocalDateTime rollingHorizon() {
+        return horizonEnd(horizon);
+    }
+
+    //a window marked generated past the rule horizon would keep the rule occurrences beyond it missing for good
+    private LocalDateTime horizonEnd(Period period) {
+        LocalDate today = LocalDate.now();
+        return earlier(today.plus(period).atStartOfDay(), today.plus(ruleHorizon).atStartOfDay());
+    }
+
+    /**
+     * Earliest availabilities starting at or after the given date across all practitioners of a speciality,
+     * found by a k-way merge of their cached calendars rather than by one query per practitioner.
+     */
+    public List<Availability> findFirstAvailable(String speciality, LocalDateTime after, int limit) {
+        return proMetrics.time(ProMetrics.AVAILABILITY_LOOKUP, "first", null, () -> mergeFirstAvailable(speciality, after, limit));
+    }
+
+    private List<Availability> mergeFirstAvailable(String speciality, LocalDateTime after, int limit) {
+        Collection<PractitionerCalendar> calendars = availabilityCache.getAll(practitionerRepository.findIdsBySpeciality(speciality)).values();
+        PriorityQueue<CalendarCursor> cursors = new PriorityQueue<>(Math.max(1, calendars.size()));
+        for (PractitionerCalendar calendar : calendars) {
+            int index = calendar.firstStartingFrom(bookableFrom(calendar.getPractitionerId(), after));
+            if (index < calendar.size()) {
+                cursors.add(new CalendarCursor(calendar, index));
+            }
+        }
+        List<Availability> availabilities = new ArrayList<>(limit);
+        while (availabilities.size() < limit && !cursors.isEmpty()) {
+            CalendarCursor cursor = cursors.poll();
+            availabilities.add(cursor.calendar.get(cursor.index));
+            if (++cursor.index < cursor.calendar.size()) {
+                cursors.add(cursor);
+            }
+        }
+        return availabilities;
+    }
+
+    //full regenerations follow time slot changes, which the time index has to pick up as well
+    @Transactional
     public List<Availability> generateAvailabilities(Integer practitionerId) {
-        // TODO : implement this
-        return new ArrayList<>();
+        return proMetrics.time(ProMetrics.AVAILABILITY_GENERATION, "full", practitionerId, () -> {
+            practitionerTimeIndexCache.invalidateAfterCommit(practitionerId);
+            GenerationWindow window = windowOf(practitionerId);
+            //the pruned past is never generated again, so the rules are not expanded before it
+            LocalDate from = window.getGeneratedFrom() != null ? window.getGeneratedFrom().toLocalDate() : practitionerTimeSlots.earliestOccurrence();
+            List<TimeSlot> timeSlots = practitionerTimeSlots.findByPractitionerId(practitionerId, from);
+            List<Appointment> appointments = appointmentRepository.findByPractitionerId(practitionerId);
+            //the whole calendar is at hand, so the daily rollup is rebuilt from it for free
+            dailyStatsRollup.rebuild(practitionerId, from, timeSlots, appointments);
+            LocalDateTime generatedUntil = window.getGeneratedUntil();
+            //a window extended by earlier queries is kept
+            window.setGeneratedUntil(generatedUntil == null ? rollingHorizon() : later(generatedUntil, rollingHorizon()));
+            if (!window.getGeneratedUntil().equals(generatedUntil)) {
+                generationWindowRepository.save(window);
+                availabilityCache.invalidateAfterCommit(practitionerId);
+            }
+            List<Availability> availabilities = within(window, availabilityGenerator.generate(practitionerId, timeSlots, appointments,
+                    practitionerSlotRules.get(practitionerId)));
+            return synchronize("full", practitionerId, availabilityRepository.findByPractitionerId(practitionerId), availabilities);
+        });
+    }
+
+    /**
+     * Generates the availabilities between the end of the practitioner's window and the given date, then moves
+     * the window there. Runs in its own transaction, under the practitioner's booking lock so that it never
+     * interleaves with the refresh of a booking.
+     */
+    public void extendAvailabilities(Integer practitionerId, LocalDateTime until) {
+        Lock lock = practitionerLocks.lockFor(practitionerId);
+        lock.lock();
+        try {
+            proMetrics.time(ProMetrics.AVAILABILITY_GENERATION, "extend", practitionerId,
+                    () -> transactionTemplate.execute(status -> extend(practitionerId, until)));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private List<Availability> extend(Integer practitionerId, LocalDateTime until) {
+        GenerationWindow window = generationWindowRepository.findById(practitionerId).orElse(null);
+        //never generated, or already extended by a concurrent query
+        if (window == null || window.getGeneratedUntil() == null || !until.isAfter(window.getGeneratedUntil())) {
+            return List.of();
+        }
+        LocalDateTime from = window.getGeneratedUntil();
+        window.setGeneratedUntil(until);
+        generationWindowRepository.save(window);
+        //the cached calendar carries the end of the window, even when no availability was added
+        availabilityCache.invalidateAfterCommit(practitionerId);
+        return refresh("extend", practitionerId, from, until, window);
+    }
+
+    /**
+     * Deletes the availabilities ended by the given date and moves the start of the window there,
+     * so that later generations do not bring them back.
+     */
+    @Transactional
+    public int pruneAvailabilities(Integer practitionerId, LocalDateTime before) {
+        GenerationWindow window = windowOf(practitionerId);
+        if (window.getGeneratedFrom() == null || before.isAfter(window.getGeneratedFrom())) {
+            window.setGeneratedFrom(before);
+            generationWindowRepository.save(window);
+        }
+        int pruned = availabilityRepository.deleteByPractitionerIdEndingBefore(practitionerId, before);
+        if (pruned > 0) {
+            availabilityCache.invalidateAfterCommit(practitionerId);
+        }
+        return pruned;
+    }
+
+    /**
+     * Regenerates only the availabilities of the time slots touched by the given interval,
+     * e.g. after an appointment has been booked or cancelled in it.
+     */
+    @Transactional
+    public List<Availability> refreshAvailabilities(Integer practitionerId, LocalDateTime startDate, LocalDateTime endDate) {
+        return proMetrics.time(ProMetrics.AVAILABILITY_GENERATION, "refresh", practitionerId,
+                () -> refresh("refresh", practitionerId, startDate, endDate, windowOf(practitionerId)));
+    }
+
+    private List<Availability> refresh(String operation, Integer practitionerId, LocalDateTime startDate, LocalDateTime endDate, GenerationWindow window) {
+        SlotRules rules = practitionerSlotRules.get(practitionerId);
+        //the buffer around an appointment takes slots of the time slots next to it as well
+        LocalDateTime windowStart = startDate.minusMinutes(rules.getBufferMinutes());
+        LocalDateTime windowEnd = endDate.plusMinutes(rules.getBufferMinutes());
+        List<TimeSlot> timeSlots;
+        //grow the window until it covers whole chains of touching time slots, as the generator merges them
+        while (true) {
+            timeSlots = practitionerTimeSlots.findByPractitionerIdTouching(practitionerId, windowStart, windowEnd);
+            LocalDateTime coveredStart = windowStart;
+            LocalDateTime coveredEnd = windowEnd;
+            for (TimeSlot timeSlot : timeSlots) {
+                if (timeSlot.getStartDate().isBefore(coveredStart)) {
+                    coveredStart = timeSlot.getStartDate();
+                }
+                if (timeSlot.getEndDate().isAfter(coveredEnd)) {
+                    coveredEnd = timeSlot.getEndDate();
+                }
+            }
+            if (coveredStart.equals(windowStart) && coveredEnd.equals(windowEnd)) {
+                break;
+            }
+            windowStart = coveredStart;
+            windowEnd = coveredEnd;
+        }
+
+        List<Availability> availabilities = within(window, availabilityGenerator.generate(practitionerId, timeSlots,
+                appointmentRepository.findByPractitionerIdAndStartDateLessThanAndEndDateGreaterThan(practitionerId,
+                        windowEnd.plusMinutes(rules.getBufferMinutes()), windowStart.minusMinutes(rules.getBufferMinutes())), rules));
+        return synchronize(operation, practitionerId, availabilityRepository.findByPractitionerIdAndStartDateLessThanAndEndDateGreaterThan(practitionerId, windowEnd, windowStart),
+                availabilities);
+    }
+
+    //a practitioner never generated nor pruned has no row yet: it is only saved once it has a bound
+    private GenerationWindow windowOf(Integer practitionerId) {
+        return generationWindowRepository.findById(practitionerId)
+                .orElseGet(() -> GenerationWindow.builder().practitionerId(practitionerId).build());
+    }
+
+    //drops what the generator computed outside the window: the time slot chains crossing its bounds are cut there
+    private List<Availability> within(GenerationWindow window, List<Availability> availabilities) {
+        LocalDateTime from = window.getGeneratedFrom();
+        LocalDateTime until = window.getGeneratedUntil() != null ? window.getGeneratedUntil() : rollingHorizon();
+        return availabilities.stream()
+                .filter(availability -> (from == null || availability.getEndDate().isAfter(from)) && availability.getStartDate().isBefore(until))
+                .collect(Collectors.toList());
+    }
+
+    private static LocalDateTime earlier(LocalDateTime first, LocalDateTime second) {
+        return first.isBefore(second) ? first : second;
+    }
+
+    private static LocalDateTime later(LocalDateTime first, LocalDateTime second) {
+        return first.isAfter(second) ? first : second;
+    }
+
+    /**
+     * Makes the stored availabilities match the computed ones by merging both lists sorted by interval:
+     * rows present on both sides are kept untouched, only the difference is deleted and inserted in batch.
+     */
+    private List<Availability> synchronize(String operation, Integer practitionerId, List<Availability> stored, List<Availability> computed) {
+        stored.sort(INTERVAL_ORDER);
+        computed.sort(INTERVAL_ORDER);
+        List<Availability> result = new ArrayList<>(computed.size());
+        List<Integer> toDelete = new ArrayList<>();
+        List<Availability> toInsert = new ArrayList<>();
+        int i = 0;
+        int j = 0;
+        while (i < stored.size() || j < computed.size()) {
+            int comparison = i == stored.size() ? 1
+                    : j == computed.size() ? -1
+                    : INTERVAL_ORDER.compare(stored.get(i), computed.get(j));
+            if (comparison < 0) {
+                //stale or duplicated row
+                toDelete.add(stored.get(i++).getId());
+            } else if (comparison > 0) {
+                toInsert.add(computed.get(j));
+                result.add(computed.get(j++));
+            } else {
+                result.add(stored.get(i++));
+                j++;
+            }
+        }
+        if (!toDelete.isEmpty()) {
+            availabilityRepository.deleteByIdIn(toDelete);
+        }
+        availabilityRepository.saveAll(toInsert);
+        proMetrics.increment(ProMetrics.SLOTS_GENERATED, operation, practitionerId, toInsert.size());
+        if (!toDelete.isEmpty() || !toInsert.isEmpty()) {
+            availabilityCache.invalidateAfterCommit(practitionerId);
+            availabilityFeed.publishAfterCommit(practitionerId, toInsert, toDelete);
+        }
+        result.sort(INTERVAL_ORDER);
+        return result;
+    }
+
+    private static final class CalendarCursor implements Comparable<CalendarCursor> {
+        private final PractitionerCalendar calendar;
+        private int index;
+
+        private CalendarCursor(PractitionerCalendar calendar, int index) {
+            this.calendar = calendar;
+            this.index = index;
+        }
+
+        @Override
+        public int compareTo(CalendarCursor other) {
+            int comparison = Integer.compare(calendar.startMinute(index), other.calendar.startMinute(other.index));
+            return comparison != 0 ? comparison : calendar.getPractitionerId().compareTo(other.calendar.getPractitionerId());
+        }
     }
 }
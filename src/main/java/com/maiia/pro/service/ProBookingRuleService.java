@@ -0,0 +1,81 @@
+package com.maiia.pro.service;
+
+import com.maiia.pro.dto.BookingRuleChange;
+import com.maiia.pro.dto.GenerationProgress;
+import com.maiia.pro.entity.BookingRule;
+import com.maiia.pro.exception.InvalidBookingRuleException;
+import com.maiia.pro.repository.BookingRuleRepository;
+import com.maiia.pro.repository.PractitionerRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+/**
+ * Booking rules change the slot grid itself, so every change regenerates the availabilities of the practitioners
+ * it applies to, once committed: the practitioner of the rule, or every practitioner of its speciality.
+ * The regeneration runs in the background, callers get its progress back.
+ */
+@Service
+public class ProBookingRuleService {
+    @Autowired
+    private BookingRuleRepository bookingRuleRepository;
+
+    @Autowired
+    private PractitionerRepository practitionerRepository;
+
+    @Autowired
+    private PractitionerSlotRules practitionerSlotRules;
+
+    @Autowired
+    private AvailabilityGenerationJob availabilityGenerationJob;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    public List<BookingRule> findAll() {
+        return bookingRuleRepository.findAll();
+    }
+
+    public BookingRuleChange create(BookingRule rule) {
+        if ((rule.getPractitionerId() == null) == (rule.getSpeciality() == null)) {
+            throw new InvalidBookingRuleException("A booking rule applies either to a practitioner or to a speciality");
+        }
+        if (rule.getSlotMinutes() != null && rule.getSlotMinutes() <= 0) {
+            throw new InvalidBookingRuleException("slotMinutes must be positive");
+        }
+        if ((rule.getBufferMinutes() != null && rule.getBufferMinutes() < 0)
+                || (rule.getMinimumNoticeMinutes() != null && rule.getMinimumNoticeMinutes() < 0)) {
+            throw new InvalidBookingRuleException("bufferMinutes and minimumNoticeMinutes must not be negative");
+        }
+        if (rule.getPractitionerId() != null && !practitionerRepository.existsById(rule.getPractitionerId())) {
+            throw new InvalidBookingRuleException("Unknown practitioner " + rule.getPractitionerId());
+        }
+        if (rule.getPractitionerId() != null ? bookingRuleRepository.existsByPractitionerId(rule.getPractitionerId())
+                : bookingRuleRepository.existsBySpeciality(rule.getSpeciality())) {
+            throw new InvalidBookingRuleException("A booking rule already exists, delete it first");
+        }
+        rule.setId(null);
+        BookingRule saved = transactionTemplate.execute(status -> {
+            practitionerSlotRules.invalidateAllAfterCommit();
+            return bookingRuleRepository.save(rule);
+        });
+        return new BookingRuleChange(saved, regenerate(saved));
+    }
+
+    public BookingRuleChange delete(Integer ruleId) {
+        BookingRule rule = bookingRuleRepository.findById(ruleId).orElseThrow();
+        transactionTemplate.executeWithoutResult(status -> {
+            practitionerSlotRules.invalidateAllAfterCommit();
+            bookingRuleRepository.delete(rule);
+        });
+        return new BookingRuleChange(rule, regenerate(rule));
+    }
+
+    private GenerationProgress regenerate(BookingRule rule) {
+        List<Integer> practitionerIds = rule.getPractitionerId() != null ? List.of(rule.getPractitionerId())
+                : practitionerRepository.findIdsBySpeciality(rule.getSpeciality());
+        return practitionerIds.isEmpty() ? null : availabilityGenerationJob.submit(practitionerIds);
+    }
+}
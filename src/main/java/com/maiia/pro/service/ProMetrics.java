@@ -0,0 +1,72 @@
+package com.maiia.pro.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.function.Supplier;
+
+/**
+ * Timers and counters of the service hot paths, all named {@code pro.*} and tagged by operation.
+ * When {@code pro.metrics.practitioner-buckets} is positive, these meters also get a {@code practitioner.bucket} tag,
+ * hashing practitioners into that many series instead of one per practitioner, {@code none} when there is no practitioner.
+ */
+@Component
+public class ProMetrics {
+    static final String AVAILABILITY_GENERATION = "pro.availability.generation";
+    static final String AVAILABILITY_LOOKUP = "pro.availability.lookup";
+    static final String SLOTS_GENERATED = "pro.availability.slots.generated";
+    private static final String APPOINTMENT_CONFLICTS = "pro.appointment.conflicts";
+    private static final String STARTUP = "pro.startup";
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${pro.metrics.practitioner-buckets:0}")
+    private int practitionerBuckets;
+
+    public <T> T time(String name, String operation, Integer practitionerId, Supplier<T> action) {
+        return Timer.builder(name)
+                .tags(tags(operation, practitionerId))
+                .register(meterRegistry)
+                .record(action);
+    }
+
+    public void increment(String name, String operation, Integer practitionerId, int amount) {
+        if (amount > 0) {
+            Counter.builder(name)
+                    .tags(tags(operation, practitionerId))
+                    .register(meterRegistry)
+                    .increment(amount);
+        }
+    }
+
+    public void appointmentConflict(String reason, Integer practitionerId) {
+        Counter.builder(APPOINTMENT_CONFLICTS)
+                .tags(tags("book", practitionerId).and("reason", reason))
+                .register(meterRegistry)
+                .increment();
+    }
+
+    //boot phases: how the data was loaded, then the whole boot until the application is ready
+    public void startup(String operation, Duration duration) {
+        Timer.builder(STARTUP)
+                .tags("operation", operation)
+                .register(meterRegistry)
+                .record(duration);
+    }
+
+    private Tags tags(String operation, Integer practitionerId) {
+        Tags tags = Tags.of("operation", operation);
+        //Prometheus rejects a meter name registered with different tag keys, so the tag is never left out
+        if (practitionerBuckets > 0) {
+            tags = tags.and("practitioner.bucket", practitionerId == null ? "none" : String.valueOf(Math.floorMod(practitionerId, practitionerBuckets)));
+        }
+        return tags;
+    }
+}
@@ -1,22 +1,52 @@
 package com.maiia.pro.service;
 
+import com.maiia.pro.dto.KeysetPage;
+import com.maiia.pro.dto.PatientView;
 import com.maiia.pro.entity.Patient;
 import com.maiia.pro.repository.PatientRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 @Service
 public class ProPatientService {
     @Autowired
     private PatientRepository patientRepository;
 
-    public Patient find(String patientId) {
+    @Autowired
+    private BatchWriter batchWriter;
+
+    public Patient find(Integer patientId) {
         return patientRepository.findById(patientId).orElseThrow();
     }
 
-    public List<Patient> findAll() {
-        return patientRepository.findAll();
+    @Transactional(readOnly = true)
+    public List<PatientView> findAll() {
+        return patientRepository.findAllViews();
+    }
+
+    @Transactional(readOnly = true)
+    public KeysetPage<PatientView> findPage(Integer after, int limit) {
+        int size = KeysetPage.clamp(limit);
+        List<PatientView> patients = patientRepository.findViewsAfter(after == null ? 0 : after, PageRequest.of(0, size + 1));
+        return KeysetPage.of(patients, size, PatientView::getId);
+    }
+
+    //ids are always generated, so imported rows never overwrite existing ones
+    public List<Patient> importPatients(List<Patient> patients) {
+        patients.forEach(patient -> patient.setId(null));
+        return batchWriter.insertAll(patients);
+    }
+
+    @Transactional(readOnly = true)
+    public void streamAll(Consumer<PatientView> consumer) {
+        try (Stream<PatientView> patients = patientRepository.streamAllViews()) {
+            patients.forEach(consumer);
+        }
     }
 }
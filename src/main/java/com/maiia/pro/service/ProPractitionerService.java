@@ -1,22 +1,62 @@
 package com.maiia.pro.service;
 
+import com.maiia.pro.dto.KeysetPage;
+import com.maiia.pro.dto.PractitionerView;
+import com.maiia.pro.dto.Utilisation;
 import com.maiia.pro.entity.Practitioner;
 import com.maiia.pro.repository.PractitionerRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 @Service
 public class ProPractitionerService {
     @Autowired
     private PractitionerRepository practitionerRepository;
 
-    public Practitioner find(String practitionerId) {
+    @Autowired
+    private PractitionerTimeIndexCache practitionerTimeIndexCache;
+
+    @Autowired
+    private BatchWriter batchWriter;
+
+    public Practitioner find(Integer practitionerId) {
         return practitionerRepository.findById(practitionerId).orElseThrow();
     }
 
-    public List<Practitioner> findAll() {
-        return practitionerRepository.findAll();
+    @Transactional(readOnly = true)
+    public List<PractitionerView> findAll() {
+        return practitionerRepository.findAllViews();
+    }
+
+    public Utilisation getUtilisation(Integer practitionerId, LocalDateTime from, LocalDateTime to) {
+        PractitionerTimeIndex index = practitionerTimeIndexCache.get(practitionerId);
+        return Utilisation.of(index.openMinutes(from, to), index.bookedMinutes(from, to));
+    }
+
+    @Transactional(readOnly = true)
+    public KeysetPage<PractitionerView> findPage(Integer after, int limit) {
+        int size = KeysetPage.clamp(limit);
+        List<PractitionerView> practitioners = practitionerRepository.findViewsAfter(after == null ? 0 : after, PageRequest.of(0, size + 1));
+        return KeysetPage.of(practitioners, size, PractitionerView::getId);
+    }
+
+    //ids are always generated, so imported rows never overwrite existing ones
+    public List<Practitioner> importPractitioners(List<Practitioner> practitioners) {
+        practitioners.forEach(practitioner -> practitioner.setId(null));
+        return batchWriter.insertAll(practitioners);
+    }
+
+    @Transactional(readOnly = true)
+    public void streamAll(Consumer<PractitionerView> consumer) {
+        try (Stream<PractitionerView> practitioners = practitionerRepository.streamAllViews()) {
+            practitioners.forEach(consumer);
+        }
     }
 }
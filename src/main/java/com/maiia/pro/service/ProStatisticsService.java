@@ -0,0 +1,49 @@
+package com.maiia.pro.service;
+
+import com.maiia.pro.dto.DailyUtilisation;
+import com.maiia.pro.dto.TimeSlotUtilisation;
+import com.maiia.pro.dto.Utilisation;
+import com.maiia.pro.repository.PractitionerDailyStatsRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Collectors;
+
+@Service
+public class ProStatisticsService {
+    @Autowired
+    private PractitionerDailyStatsRepository practitionerDailyStatsRepository;
+
+    @Autowired
+    private PractitionerTimeSlots practitionerTimeSlots;
+
+    @Autowired
+    private PractitionerTimeIndexCache practitionerTimeIndexCache;
+
+    //days without time slots nor appointments have no rollup row and are left out
+    @Transactional(readOnly = true)
+    public List<DailyUtilisation> findDailyByPractitionerId(Integer practitionerId, LocalDate from, LocalDate to) {
+        return practitionerDailyStatsRepository.findDailyByPractitionerId(practitionerId, from, to);
+    }
+
+    @Transactional(readOnly = true)
+    public List<DailyUtilisation> findDailyBySpeciality(String speciality, LocalDate from, LocalDate to) {
+        return practitionerDailyStatsRepository.findDailyBySpeciality(speciality, from, to);
+    }
+
+    //booked minutes come from the cached time index, the fill rate of a slot is not worth a table of its own
+    public List<TimeSlotUtilisation> findTimeSlotUtilisation(Integer practitionerId, LocalDateTime from, LocalDateTime to) {
+        PractitionerTimeIndex index = practitionerTimeIndexCache.get(practitionerId);
+        return practitionerTimeSlots.findByPractitionerIdTouching(practitionerId, from, to).stream()
+                .filter(timeSlot -> timeSlot.getStartDate().isBefore(to) && timeSlot.getEndDate().isAfter(from))
+                .map(timeSlot -> new TimeSlotUtilisation(timeSlot.getId(), timeSlot.getRuleId(), timeSlot.getStartDate(), timeSlot.getEndDate(),
+                        Utilisation.of(Duration.between(timeSlot.getStartDate(), timeSlot.getEndDate()).toMinutes(),
+                                index.bookedMinutes(timeSlot.getStartDate(), timeSlot.getEndDate()))))
+                .collect(Collectors.toList());
+    }
+}
@@ -1,18 +1,333 @@
 package com.maiia.pro.service;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.maiia.pro.dto.GenerationProgress;
+import com.maiia.pro.dto.TimeSlotImportResult;
 import com.maiia.pro.entity.TimeSlot;
+import com.maiia.pro.entity.TimeSlotRule;
+import com.maiia.pro.entity.TimeSlotRuleExclusion;
+import com.maiia.pro.exception.InvalidTimeSlotRuleException;
+import com.maiia.pro.repository.PractitionerRepository;
 import com.maiia.pro.repository.TimeSlotRepository;
+import com.maiia.pro.repository.TimeSlotRuleExclusionRepository;
+import com.maiia.pro.repository.TimeSlotRuleRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 @Service
 public class ProTimeSlotService {
+    private static final int MAX_IMPORT_ERRORS = 100;
+
     @Autowired
     private TimeSlotRepository timeSlotRepository;
 
-    public List<TimeSlot> findByPractitionerId(String practitionerId) {
-        return timeSlotRepository.findByPractitionerId(practitionerId);
+    @Autowired
+    private TimeSlotRuleRepository timeSlotRuleRepository;
+
+    @Autowired
+    private TimeSlotRuleExclusionRepository timeSlotRuleExclusionRepository;
+
+    @Autowired
+    private PractitionerTimeSlots practitionerTimeSlots;
+
+    @Autowired
+    private ProAvailabilityService proAvailabilityService;
+
+    @Autowired
+    private PractitionerRepository practitionerRepository;
+
+    @Autowired
+    private BatchWriter batchWriter;
+
+    @Autowired
+    private PractitionerTimeIndexCache practitionerTimeIndexCache;
+
+    @Autowired
+    private AvailabilityGenerationJob availabilityGenerationJob;
+
+    @Autowired
+    private DailyStatsRollup dailyStatsRollup;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${pro.time-slot.import.chunk-size:5000}")
+    private int chunkSize;
+
+    //the occurrences of the practitioner's rules are included, up to the horizon
+    public List<TimeSlot> findByPractitionerId(Integer practitionerId) {
+        return practitionerTimeSlots.findByPractitionerId(practitionerId);
+    }
+
+    public List<TimeSlot> findByPractitionerId(Integer practitionerId, LocalDateTime from, LocalDateTime to) {
+        return practitionerTimeSlots.findByPractitionerIdTouching(practitionerId, from, to).stream()
+                .filter(timeSlot -> timeSlot.getStartDate().isBefore(to) && timeSlot.getEndDate().isAfter(from))
+                .collect(Collectors.toList());
+    }
+
+    public List<TimeSlotRule> findRulesByPractitionerId(Integer practitionerId) {
+        return timeSlotRuleRepository.findByPractitionerId(practitionerId);
+    }
+
+    @Transactional
+    public TimeSlotRule createRule(TimeSlotRule rule) {
+        if (rule.getPractitionerId() == null || rule.getDayOfWeek() == null || rule.getValidFrom() == null
+                || rule.getStartTime() == null || rule.getEndTime() == null || !rule.getStartTime().isBefore(rule.getEndTime())) {
+            throw new InvalidTimeSlotRuleException("A time slot rule needs a practitioner, a day of week, a validFrom date and a start time before its end time");
+        }
+        if (rule.getValidUntil() != null && rule.getValidUntil().isBefore(rule.getValidFrom())) {
+            throw new InvalidTimeSlotRuleException("validUntil must not be before validFrom");
+        }
+        if (!practitionerRepository.existsById(rule.getPractitionerId())) {
+            throw new InvalidTimeSlotRuleException("Unknown practitioner " + rule.getPractitionerId());
+        }
+        rule.setId(null);
+        rule.setVersion(null);
+        TimeSlotRule saved = timeSlotRuleRepository.save(rule);
+        proAvailabilityService.generateAvailabilities(saved.getPractitionerId());
+        return saved;
+    }
+
+    //booked appointments are kept: they stay visible in the practitioner's agenda even outside its time slots
+    @Transactional
+    public void deleteRule(Integer ruleId) {
+        TimeSlotRule rule = timeSlotRuleRepository.findById(ruleId).orElseThrow();
+        timeSlotRuleExclusionRepository.deleteByRuleId(ruleId);
+        timeSlotRuleRepository.delete(rule);
+        proAvailabilityService.generateAvailabilities(rule.getPractitionerId());
+    }
+
+    @Transactional
+    public TimeSlotRuleExclusion excludeDate(Integer ruleId, LocalDate date) {
+        TimeSlotRule rule = timeSlotRuleRepository.findById(ruleId).orElseThrow();
+        if (date.getDayOfWeek() != rule.getDayOfWeek()) {
+            throw new InvalidTimeSlotRuleException("The rule only applies on " + rule.getDayOfWeek());
+        }
+        TimeSlotRuleExclusion exclusion = timeSlotRuleExclusionRepository.save(TimeSlotRuleExclusion.builder().ruleId(ruleId).excludedDate(date).build());
+        proAvailabilityService.refreshAvailabilities(rule.getPractitionerId(), date.atTime(rule.getStartTime()), date.atTime(rule.getEndTime()));
+        dailyStatsRollup.refreshDays(rule.getPractitionerId(), date, date);
+        practitionerTimeIndexCache.invalidateAfterCommit(rule.getPractitionerId());
+        return exclusion;
+    }
+
+    //availabilities are not regenerated here: callers run the generation job once for every practitioner they touched
+    public List<TimeSlot> importTimeSlots(List<TimeSlot> timeSlots) {
+        timeSlots.forEach(timeSlot -> {
+            timeSlot.setId(null);
+            timeSlot.setVersion(null);
+        });
+        List<TimeSlot> imported = batchWriter.insertAll(timeSlots);
+        imported.stream().map(TimeSlot::getPractitionerId).distinct().forEach(practitionerTimeIndexCache::invalidateAfterCommit);
+        return imported;
+    }
+
+    public TimeSlotImportResult importCsv(InputStream input) throws IOException {
+        try (TimeSlotReader reader = TimeSlotReader.csv(input)) {
+            return importTimeSlots(reader);
+        }
+    }
+
+    public TimeSlotImportResult importNdjson(InputStream input) throws IOException {
+        try (TimeSlotReader reader = TimeSlotReader.ndjson(input, objectMapper.readerFor(TimeSlot.class))) {
+            return importTimeSlots(reader);
+        }
+    }
+
+    /**
+     * Reads the upload in chunks, each merged into the stored time slots of its practitioners in its own transaction.
+     * Overlapping or touching rows are merged with each other and with the stored slots, so re-importing a file changes nothing.
+     * Only the practitioners whose time slots actually changed get their availabilities regenerated.
+     */
+    private TimeSlotImportResult importTimeSlots(TimeSlotReader reader) throws IOException {
+        ImportTotals totals = new ImportTotals();
+        Set<Integer> knownPractitioners = new HashSet<>();
+        Set<Integer> unknownPractitioners = new HashSet<>();
+        Set<Integer> changedPractitioners = new LinkedHashSet<>();
+        List<TimeSlot> chunk = new ArrayList<>(chunkSize);
+        int chunkFirstLine = 1;
+        while (true) {
+            TimeSlot timeSlot;
+            try {
+                timeSlot = reader.next();
+            } catch (IllegalArgumentException e) {
+                totals.rows++;
+                totals.reject(reader.getLine(), e.getMessage());
+                continue;
+            }
+            if (timeSlot == null) {
+                break;
+            }
+            totals.rows++;
+            String error = validate(timeSlot, knownPractitioners, unknownPractitioners);
+            if (error != null) {
+                totals.reject(reader.getLine(), error);
+                continue;
+            }
+            timeSlot.setId(null);
+            timeSlot.setVersion(null);
+            chunk.add(timeSlot);
+            if (chunk.size() == chunkSize) {
+                writeChunk(chunk, chunkFirstLine, reader.getLine(), totals, changedPractitioners);
+                chunk = new ArrayList<>(chunkSize);
+                chunkFirstLine = reader.getLine() + 1;
+            }
+        }
+        if (!chunk.isEmpty()) {
+            writeChunk(chunk, chunkFirstLine, reader.getLine(), totals, changedPractitioners);
+        }
+        GenerationProgress generation = changedPractitioners.isEmpty() ? null
+                : availabilityGenerationJob.submit(new ArrayList<>(changedPractitioners));
+        return new TimeSlotImportResult(totals.rows, totals.rejected, totals.inserted, totals.extended, totals.removed,
+                totals.unchanged, totals.errors, generation);
+    }
+
+    private String validate(TimeSlot timeSlot, Set<Integer> knownPractitioners, Set<Integer> unknownPractitioners) {
+        if (timeSlot.getPractitionerId() == null || timeSlot.getStartDate() == null || timeSlot.getEndDate() == null) {
+            return "practitionerId, startDate and endDate are required";
+        }
+        if (!timeSlot.getStartDate().isBefore(timeSlot.getEndDate())) {
+            return "startDate must be before endDate";
+        }
+        Integer practitionerId = timeSlot.getPractitionerId();
+        if (!knownPractitioners.contains(practitionerId)) {
+            if (unknownPractitioners.contains(practitionerId) || !practitionerRepository.existsById(practitionerId)) {
+                unknownPractitioners.add(practitionerId);
+                return "unknown practitioner " + practitionerId;
+            }
+            knownPractitioners.add(practitionerId);
+        }
+        return null;
+    }
+
+    private void writeChunk(List<TimeSlot> chunk, int firstLine, int lastLine, ImportTotals totals, Set<Integer> changedPractitioners) {
+        //counted apart so a rolled back chunk leaves the totals untouched
+        ImportTotals chunkTotals = new ImportTotals();
+        try {
+            Set<Integer> changed = transactionTemplate.execute(status -> mergeChunk(chunk, chunkTotals));
+            totals.add(chunkTotals);
+            changedPractitioners.addAll(changed);
+        } catch (OptimisticLockingFailureException | DataIntegrityViolationException e) {
+            totals.rejected += chunk.size();
+            totals.error("lines " + firstLine + "-" + lastLine + ": conflicted with a concurrent change, import them again");
+        }
+    }
+
+    private Set<Integer> mergeChunk(List<TimeSlot> chunk, ImportTotals totals) {
+        Map<Integer, List<TimeSlot>> rowsByPractitioner = new LinkedHashMap<>();
+        for (TimeSlot timeSlot : chunk) {
+            rowsByPractitioner.computeIfAbsent(timeSlot.getPractitionerId(), practitionerId -> new ArrayList<>()).add(timeSlot);
+        }
+        Set<Integer> changed = new LinkedHashSet<>();
+        List<TimeSlot> toInsert = new ArrayList<>();
+        List<TimeSlot> toDelete = new ArrayList<>();
+        rowsByPractitioner.forEach((practitionerId, rows) -> {
+            if (merge(practitionerId, rows, toInsert, toDelete, totals)) {
+                changed.add(practitionerId);
+                practitionerTimeIndexCache.invalidateAfterCommit(practitionerId);
+            }
+        });
+        timeSlotRepository.saveAll(toInsert);
+        timeSlotRepository.deleteAll(toDelete);
+        return changed;
+    }
+
+    //sweeps the new rows together with the stored slots they touch; a stored slot absorbing rows is widened in place
+    private boolean merge(Integer practitionerId, List<TimeSlot> rows, List<TimeSlot> toInsert, List<TimeSlot> toDelete, ImportTotals totals) {
+        LocalDateTime from = rows.stream().map(TimeSlot::getStartDate).min(Comparator.naturalOrder()).orElseThrow();
+        LocalDateTime to = rows.stream().map(TimeSlot::getEndDate).max(Comparator.naturalOrder()).orElseThrow();
+        List<TimeSlot> timeSlots = new ArrayList<>(timeSlotRepository.findByPractitionerIdAndStartDateLessThanEqualAndEndDateGreaterThanEqual(practitionerId, to, from));
+        timeSlots.addAll(rows);
+        timeSlots.sort(Comparator.comparing(TimeSlot::getStartDate));
+        boolean changed = false;
+        int i = 0;
+        while (i < timeSlots.size()) {
+            LocalDateTime groupStart = timeSlots.get(i).getStartDate();
+            LocalDateTime groupEnd = timeSlots.get(i).getEndDate();
+            TimeSlot kept = null;
+            List<TimeSlot> absorbed = new ArrayList<>();
+            int newRows = 0;
+            //stored slots have an id, new rows do not
+            for (; i < timeSlots.size() && !timeSlots.get(i).getStartDate().isAfter(groupEnd); i++) {
+                TimeSlot timeSlot = timeSlots.get(i);
+                if (timeSlot.getEndDate().isAfter(groupEnd)) {
+                    groupEnd = timeSlot.getEndDate();
+                }
+                if (timeSlot.getId() == null) {
+                    newRows++;
+                } else if (kept == null) {
+                    kept = timeSlot;
+                } else {
+                    absorbed.add(timeSlot);
+                }
+            }
+            if (newRows == 0) {
+                continue;
+            }
+            if (kept == null) {
+                toInsert.add(TimeSlot.builder().practitionerId(practitionerId).startDate(groupStart).endDate(groupEnd).build());
+                totals.inserted++;
+                changed = true;
+            } else if (absorbed.isEmpty() && kept.getStartDate().equals(groupStart) && kept.getEndDate().equals(groupEnd)) {
+                totals.unchanged += newRows;
+            } else {
+                kept.setStartDate(groupStart);
+                kept.setEndDate(groupEnd);
+                toDelete.addAll(absorbed);
+                totals.extended++;
+                totals.removed += absorbed.size();
+                changed = true;
+            }
+        }
+        return changed;
+    }
+
+    private static final class ImportTotals {
+        private int rows;
+        private int rejected;
+        private int inserted;
+        private int extended;
+        private int removed;
+        private int unchanged;
+        private final List<String> errors = new ArrayList<>();
+
+        private void reject(int line, String message) {
+            rejected++;
+            error("line " + line + ": " + message);
+        }
+
+        private void error(String message) {
+            if (errors.size() < MAX_IMPORT_ERRORS) {
+                errors.add(message);
+            }
+        }
+
+        private void add(ImportTotals chunkTotals) {
+            inserted += chunkTotals.inserted;
+            extended += chunkTotals.extended;
+            removed += chunkTotals.removed;
+            unchanged += chunkTotals.unchanged;
+        }
     }
 }
@@ -0,0 +1,20 @@
+package com.maiia.pro.service;
+
+import lombok.Value;
+
+import java.time.LocalDateTime;
+
+//the booking rules of one practitioner, resolved from its own rule, its speciality's rule and the defaults
+@Value
+public class SlotRules {
+    int slotMinutes;
+    //kept free before and after every appointment
+    int bufferMinutes;
+    //0 lets slots be booked up to the last minute; applied when reading and booking, never stored
+    int minimumNoticeMinutes;
+
+    //the earliest start that can still be booked, null without notice
+    public LocalDateTime bookableFrom() {
+        return minimumNoticeMinutes > 0 ? LocalDateTime.now().plusMinutes(minimumNoticeMinutes) : null;
+    }
+}
@@ -0,0 +1,86 @@
+package com.maiia.pro.service;
+
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.maiia.pro.entity.TimeSlot;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.function.Function;
+
+/**
+ * Reads time slots one line at a time from a CSV ({@code practitionerId,startDate,endDate}, optional header)
+ * or NDJSON upload, so an import never holds the whole file in memory.
+ * A malformed line raises an {@link IllegalArgumentException} and the next call carries on with the following line.
+ */
+final class TimeSlotReader implements Closeable {
+    private static final String CSV_HEADER = "practitionerId";
+
+    private final BufferedReader reader;
+    private final Function<String, TimeSlot> parser;
+    private int line;
+
+    private TimeSlotReader(InputStream input, Function<String, TimeSlot> parser) {
+        this.reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+        this.parser = parser;
+    }
+
+    static TimeSlotReader csv(InputStream input) {
+        return new TimeSlotReader(input, TimeSlotReader::parseCsv);
+    }
+
+    static TimeSlotReader ndjson(InputStream input, ObjectReader objectReader) {
+        return new TimeSlotReader(input, text -> parseJson(objectReader, text));
+    }
+
+    //returns null at the end of the input, blank lines and the csv header are skipped
+    TimeSlot next() throws IOException {
+        String text;
+        while ((text = reader.readLine()) != null) {
+            line++;
+            text = text.trim();
+            if (text.isEmpty() || (line == 1 && text.startsWith(CSV_HEADER))) {
+                continue;
+            }
+            return parser.apply(text);
+        }
+        return null;
+    }
+
+    int getLine() {
+        return line;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    private static TimeSlot parseCsv(String text) {
+        String[] columns = text.split(",", -1);
+        if (columns.length != 3) {
+            throw new IllegalArgumentException("expected practitionerId,startDate,endDate but got " + columns.length + " columns");
+        }
+        try {
+            return TimeSlot.builder()
+                    .practitionerId(Integer.valueOf(columns[0].trim()))
+                    .startDate(LocalDateTime.parse(columns[1].trim()))
+                    .endDate(LocalDateTime.parse(columns[2].trim()))
+                    .build();
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException(e.getMessage(), e);
+        }
+    }
+
+    private static TimeSlot parseJson(ObjectReader objectReader, String text) {
+        try {
+            return objectReader.readValue(text);
+        } catch (IOException e) {
+            throw new IllegalArgumentException(e.getMessage(), e);
+        }
+    }
+}
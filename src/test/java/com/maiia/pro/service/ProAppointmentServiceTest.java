@@ -0,0 +1,154 @@
+package com.maiia.pro.service;
+
+import com.maiia.pro.EntityFactory;
+import com.maiia.pro.entity.Appointment;
+import com.maiia.pro.entity.Availability;
+import com.maiia.pro.entity.Practitioner;
+import com.maiia.pro.exception.AppointmentConflictException;
+import com.maiia.pro.repository.AppointmentRepository;
+import com.maiia.pro.repository.PractitionerRepository;
+import com.maiia.pro.repository.TimeSlotRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.LocalDateTime;
+import java.time.Month;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+class ProAppointmentServiceTest {
+    private final EntityFactory entityFactory = new EntityFactory();
+    private final static Integer patient_id = 657679;
+
+    @Autowired
+    private ProAppointmentService proAppointmentService;
+
+    @Autowired
+    private ProAvailabilityService proAvailabilityService;
+
+    @Autowired
+    private PractitionerRepository practitionerRepository;
+
+    @Autowired
+    private TimeSlotRepository timeSlotRepository;
+
+    @Autowired
+    private AppointmentRepository appointmentRepository;
+
+    @Test
+    void bookAppointmentOnlyUpdatesTouchedTimeSlot() {
+        Practitioner practitioner = practitionerRepository.save(entityFactory.createPractitioner());
+        LocalDateTime startDate = LocalDateTime.of(2020, Month.FEBRUARY, 5, 11, 0, 0);
+        timeSlotRepository.save(entityFactory.createTimeSlot(practitioner.getId(), startDate, startDate.plusHours(1)));
+        timeSlotRepository.save(entityFactory.createTimeSlot(practitioner.getId(), startDate.plusHours(3), startDate.plusHours(4)));
+        proAvailabilityService.generateAvailabilities(practitioner.getId());
+
+        proAppointmentService.book(entityFactory.createAppointment(practitioner.getId(),
+                patient_id,
+                startDate.plusMinutes(15),
+                startDate.plusMinutes(35)));
+
+        List<LocalDateTime> availabilitiesStartDate = startDates(practitioner.getId());
+        assertEquals(List.of(startDate,
+                startDate.plusMinutes(35),
+                startDate.plusMinutes(50),
+                startDate.plusHours(3),
+                startDate.plusHours(3).plusMinutes(15),
+                startDate.plusHours(3).plusMinutes(30),
+                startDate.plusHours(3).plusMinutes(45)), availabilitiesStartDate);
+    }
+
+    @Test
+    void cancelAppointmentRestoresAvailabilities() {
+        Practitioner practitioner = practitionerRepository.save(entityFactory.createPractitioner());
+        LocalDateTime startDate = LocalDateTime.of(2020, Month.FEBRUARY, 5, 11, 0, 0);
+        timeSlotRepository.save(entityFactory.createTimeSlot(practitioner.getId(), startDate, startDate.plusHours(1)));
+        proAvailabilityService.generateAvailabilities(practitioner.getId());
+        Appointment appointment = proAppointmentService.book(entityFactory.createAppointment(practitioner.getId(),
+                patient_id,
+                startDate.plusMinutes(20),
+                startDate.plusMinutes(35)));
+        //the booking is applied to the time index cached by its own check
+        assertFalse(proAppointmentService.isFree(practitioner.getId(), startDate.plusMinutes(30), startDate.plusMinutes(45)));
+
+        proAppointmentService.cancel(appointment.getId());
+
+        assertEquals(List.of(startDate,
+                startDate.plusMinutes(15),
+                startDate.plusMinutes(30),
+                startDate.plusMinutes(45)), startDates(practitioner.getId()));
+        assertTrue(proAppointmentService.isFree(practitioner.getId(), startDate.plusMinutes(30), startDate.plusMinutes(45)));
+    }
+
+    @Test
+    void concurrentBookingsOfTheSameSlotBookItOnce() throws Exception {
+        Practitioner practitioner = practitionerRepository.save(entityFactory.createPractitioner());
+        LocalDateTime startDate = LocalDateTime.of(2020, Month.FEBRUARY, 5, 11, 0, 0);
+        timeSlotRepository.save(entityFactory.createTimeSlot(practitioner.getId(), startDate, startDate.plusHours(1)));
+        proAvailabilityService.generateAvailabilities(practitioner.getId());
+
+        List<Boolean> results = bookConcurrently(IntStream.range(0, 16)
+                .mapToObj(i -> entityFactory.createAppointment(practitioner.getId(), patient_id + i, startDate, startDate.plusMinutes(15)))
+                .collect(Collectors.toList()));
+
+        assertEquals(1, results.stream().filter(booked -> booked).count());
+        assertEquals(1, appointmentRepository.findByPractitionerId(practitioner.getId()).size());
+    }
+
+    @Test
+    void concurrentBookingsOfDistinctSlotsAllSucceed() throws Exception {
+        Practitioner practitioner = practitionerRepository.save(entityFactory.createPractitioner());
+        LocalDateTime startDate = LocalDateTime.of(2020, Month.FEBRUARY, 5, 8, 0, 0);
+        timeSlotRepository.save(entityFactory.createTimeSlot(practitioner.getId(), startDate, startDate.plusHours(8)));
+        proAvailabilityService.generateAvailabilities(practitioner.getId());
+
+        List<Boolean> results = bookConcurrently(IntStream.range(0, 32)
+                .mapToObj(i -> entityFactory.createAppointment(practitioner.getId(), patient_id, startDate.plusMinutes(15L * i), startDate.plusMinutes(15L * i + 15)))
+                .collect(Collectors.toList()));
+
+        assertTrue(results.stream().allMatch(booked -> booked));
+        assertTrue(proAvailabilityService.findByPractitionerId(practitioner.getId()).isEmpty());
+    }
+
+    private List<Boolean> bookConcurrently(List<Appointment> appointments) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Boolean>> futures = new ArrayList<>();
+            for (Appointment appointment : appointments) {
+                futures.add(executor.submit(() -> {
+                    try {
+                        proAppointmentService.book(appointment);
+                        return true;
+                    } catch (AppointmentConflictException e) {
+                        return false;
+                    }
+                }));
+            }
+            List<Boolean> results = new ArrayList<>();
+            for (Future<Boolean> future : futures) {
+                results.add(future.get());
+            }
+            return results;
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private List<LocalDateTime> startDates(Integer practitionerId) {
+        return proAvailabilityService.findByPractitionerId(practitionerId).stream()
+                .map(Availability::getStartDate)
+                .sorted()
+                .collect(Collectors.toList());
+    }
+}
@@ -1,7 +1,9 @@
 package com.maiia.pro.service;
 
 import com.maiia.pro.EntityFactory;
+import com.maiia.pro.dto.BookingRuleChange;
 import com.maiia.pro.entity.Availability;
+import com.maiia.pro.entity.BookingRule;
 import com.maiia.pro.entity.Practitioner;
 import com.maiia.pro.repository.AppointmentRepository;
 import com.maiia.pro.repository.AvailabilityRepository;
@@ -39,6 +41,12 @@ class ProAvailabilityServiceTest {
     @Autowired
     private TimeSlotRepository timeSlotRepository;
 
+    @Autowired
+    private ProBookingRuleService proBookingRuleService;
+
+    @Autowired
+    private PractitionerSlotRules practitionerSlotRules;
+
     @Test
     void generateAvailabilities() {
         Practitioner practitioner = practitionerRepository.save(entityFactory.createPractitioner());
@@ -196,4 +204,84 @@ class ProAvailabilityServiceTest {
         expectedStartDate.add(startDate.plusMinutes(50));
         assertTrue(availabilitiesStartDate.containsAll(expectedStartDate));
     }
+
+    @Test
+    void findFirstAvailableMergesPractitionersOfTheSpeciality() {
+        String speciality = "podiatrist";
+        Practitioner early = practitionerRepository.save(entityFactory.createPractitioner());
+        Practitioner late = practitionerRepository.save(entityFactory.createPractitioner());
+        early.setSpeciality(speciality);
+        late.setSpeciality(speciality);
+        practitionerRepository.save(early);
+        practitionerRepository.save(late);
+        LocalDateTime startDate = LocalDateTime.of(2020, Month.FEBRUARY, 5, 11, 0, 0);
+        timeSlotRepository.save(entityFactory.createTimeSlot(early.getId(), startDate, startDate.plusMinutes(30)));
+        timeSlotRepository.save(entityFactory.createTimeSlot(late.getId(), startDate.plusMinutes(10), startDate.plusMinutes(40)));
+        proAvailabilityService.generateAvailabilities(early.getId());
+        proAvailabilityService.generateAvailabilities(late.getId());
+
+        List<Availability> availabilities = proAvailabilityService.findFirstAvailable(speciality, startDate.plusMinutes(5), 3);
+
+        assertEquals(List.of(startDate.plusMinutes(10), startDate.plusMinutes(15), startDate.plusMinutes(25)),
+                availabilities.stream().map(Availability::getStartDate).collect(Collectors.toList()));
+        assertEquals(List.of(late.getId(), early.getId(), late.getId()),
+                availabilities.stream().map(Availability::getPractitionerId).collect(Collectors.toList()));
+    }
+
+    @Test
+    void availabilitiesPastTheHorizonAreGeneratedOnDemandAndPrunedOnesStayAway() {
+        Practitioner practitioner = practitionerRepository.save(entityFactory.createPractitioner());
+        LocalDateTime pastDate = LocalDateTime.of(2020, Month.FEBRUARY, 5, 11, 0, 0);
+        LocalDateTime farDate = proAvailabilityService.rollingHorizon().plusDays(10).withHour(9);
+        timeSlotRepository.save(entityFactory.createTimeSlot(practitioner.getId(), pastDate, pastDate.plusMinutes(30)));
+        timeSlotRepository.save(entityFactory.createTimeSlot(practitioner.getId(), farDate, farDate.plusMinutes(30)));
+
+        proAvailabilityService.generateAvailabilities(practitioner.getId());
+
+        assertEquals(List.of(pastDate, pastDate.plusMinutes(15)), startDates(proAvailabilityService.findByPractitionerId(practitioner.getId())));
+        assertEquals(List.of(farDate, farDate.plusMinutes(15)),
+                startDates(proAvailabilityService.findByPractitionerId(practitioner.getId(), farDate.toLocalDate().atStartOfDay(), farDate.plusDays(1))));
+        assertEquals(4, availabilityRepository.findByPractitionerId(practitioner.getId()).size());
+
+        assertEquals(2, proAvailabilityService.pruneAvailabilities(practitioner.getId(), pastDate.plusDays(1)));
+        proAvailabilityService.generateAvailabilities(practitioner.getId());
+
+        assertEquals(List.of(farDate, farDate.plusMinutes(15)), startDates(proAvailabilityService.findByPractitionerId(practitioner.getId())));
+    }
+
+    @Test
+    void bookingRulesOfTheSpecialityAndPractitionerShapeTheSlots() throws InterruptedException {
+        String speciality = "booking rules " + System.nanoTime();
+        LocalDateTime startDate = LocalDateTime.of(2020, Month.FEBRUARY, 12, 11, 0, 0);
+        List<Practitioner> practitioners = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            Practitioner practitioner = entityFactory.createPractitioner();
+            practitioner.setSpeciality(speciality);
+            practitioners.add(practitionerRepository.save(practitioner));
+            timeSlotRepository.save(entityFactory.createTimeSlot(practitioners.get(i).getId(), startDate, startDate.plusHours(1)));
+        }
+        appointmentRepository.save(entityFactory.createAppointment(practitioners.get(0).getId(), patient_id,
+                startDate.plusMinutes(35), startDate.plusMinutes(45)));
+
+        BookingRuleChange specialityRule = proBookingRuleService.create(BookingRule.builder().speciality(speciality).slotMinutes(30).bufferMinutes(5).build());
+        //the practitioner only overrides the slot length, the buffer still comes from the speciality
+        BookingRuleChange practitionerRule = proBookingRuleService.create(BookingRule.builder().practitionerId(practitioners.get(1).getId()).slotMinutes(20).build());
+        try {
+            specialityRule.getGeneration().await();
+            practitionerRule.getGeneration().await();
+            assertEquals(List.of(startDate, startDate.plusMinutes(50)),
+                    startDates(proAvailabilityService.findByPractitionerId(practitioners.get(0).getId())));
+            assertEquals(List.of(startDate, startDate.plusMinutes(20), startDate.plusMinutes(40)),
+                    startDates(proAvailabilityService.findByPractitionerId(practitioners.get(1).getId())));
+        } finally {
+            //the database and the resolved rules are shared with the other tests
+            proBookingRuleService.delete(practitionerRule.getRule().getId()).getGeneration().await();
+            proBookingRuleService.delete(specialityRule.getRule().getId()).getGeneration().await();
+            practitionerSlotRules.clear();
+        }
+    }
+
+    private static List<LocalDateTime> startDates(List<Availability> availabilities) {
+        return availabilities.stream().map(Availability::getStartDate).sorted().collect(Collectors.toList());
+    }
 }
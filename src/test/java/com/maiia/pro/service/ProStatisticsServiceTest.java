@@ -0,0 +1,82 @@
+package com.maiia.pro.service;
+
+import com.maiia.pro.EntityFactory;
+import com.maiia.pro.dto.DailyUtilisation;
+import com.maiia.pro.dto.TimeSlotUtilisation;
+import com.maiia.pro.entity.Appointment;
+import com.maiia.pro.entity.Practitioner;
+import com.maiia.pro.repository.PractitionerRepository;
+import com.maiia.pro.repository.TimeSlotRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.Month;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest
+class ProStatisticsServiceTest {
+    private final EntityFactory entityFactory = new EntityFactory();
+    private final static Integer patient_id = 657679;
+
+    @Autowired
+    private ProStatisticsService proStatisticsService;
+
+    @Autowired
+    private ProAppointmentService proAppointmentService;
+
+    @Autowired
+    private ProAvailabilityService proAvailabilityService;
+
+    @Autowired
+    private PractitionerRepository practitionerRepository;
+
+    @Autowired
+    private TimeSlotRepository timeSlotRepository;
+
+    @Test
+    void bookingsAndCancellationsUpdateTheDailyRollup() {
+        Practitioner practitioner = practitionerRepository.save(entityFactory.createPractitioner());
+        LocalDateTime startDate = LocalDateTime.of(2020, Month.MARCH, 2, 9, 0, 0);
+        timeSlotRepository.save(entityFactory.createTimeSlot(practitioner.getId(), startDate, startDate.plusHours(2)));
+        timeSlotRepository.save(entityFactory.createTimeSlot(practitioner.getId(), startDate.plusDays(1), startDate.plusDays(1).plusHours(1)));
+        proAvailabilityService.generateAvailabilities(practitioner.getId());
+
+        proAppointmentService.book(entityFactory.createAppointment(practitioner.getId(), patient_id, startDate, startDate.plusMinutes(30)));
+        Appointment cancelled = proAppointmentService.book(entityFactory.createAppointment(practitioner.getId(), patient_id,
+                startDate.plusMinutes(30), startDate.plusMinutes(45)));
+        proAppointmentService.book(entityFactory.createAppointment(practitioner.getId(), patient_id,
+                startDate.plusDays(1), startDate.plusDays(1).plusMinutes(15)));
+        proAppointmentService.cancel(cancelled.getId());
+
+        List<DailyUtilisation> daily = proStatisticsService.findDailyByPractitionerId(practitioner.getId(),
+                LocalDate.of(2020, Month.MARCH, 1), LocalDate.of(2020, Month.MARCH, 8));
+        assertEquals(List.of(new DailyUtilisation(LocalDate.of(2020, Month.MARCH, 2), 120, 30, 1),
+                new DailyUtilisation(LocalDate.of(2020, Month.MARCH, 3), 60, 15, 1)), daily);
+
+        List<TimeSlotUtilisation> timeSlots = proStatisticsService.findTimeSlotUtilisation(practitioner.getId(), startDate, startDate.plusHours(2));
+        assertEquals(1, timeSlots.size());
+        assertEquals(0.25, timeSlots.get(0).getUtilisation().getFillRate());
+    }
+
+    @Test
+    void specialityStatisticsSumTheirPractitioners() {
+        String speciality = "statistics " + System.nanoTime();
+        LocalDateTime startDate = LocalDateTime.of(2020, Month.MARCH, 9, 9, 0, 0);
+        for (int i = 1; i <= 2; i++) {
+            Practitioner practitioner = entityFactory.createPractitioner();
+            practitioner.setSpeciality(speciality);
+            practitioner = practitionerRepository.save(practitioner);
+            timeSlotRepository.save(entityFactory.createTimeSlot(practitioner.getId(), startDate, startDate.plusHours(i)));
+            proAvailabilityService.generateAvailabilities(practitioner.getId());
+            proAppointmentService.book(entityFactory.createAppointment(practitioner.getId(), patient_id, startDate, startDate.plusMinutes(15)));
+        }
+
+        assertEquals(List.of(new DailyUtilisation(LocalDate.of(2020, Month.MARCH, 9), 180, 30, 2)),
+                proStatisticsService.findDailyBySpeciality(speciality, LocalDate.of(2020, Month.MARCH, 9), LocalDate.of(2020, Month.MARCH, 10)));
+    }
+}
@@ -0,0 +1,115 @@
+package com.maiia.pro.service;
+
+import com.maiia.pro.EntityFactory;
+import com.maiia.pro.dto.TimeSlotImportResult;
+import com.maiia.pro.entity.Availability;
+import com.maiia.pro.entity.Practitioner;
+import com.maiia.pro.entity.TimeSlot;
+import com.maiia.pro.entity.TimeSlotRule;
+import com.maiia.pro.repository.PractitionerRepository;
+import com.maiia.pro.repository.TimeSlotRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.Month;
+import java.time.temporal.TemporalAdjusters;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+@SpringBootTest
+class ProTimeSlotServiceTest {
+    private final EntityFactory entityFactory = new EntityFactory();
+
+    @Autowired
+    private ProTimeSlotService proTimeSlotService;
+
+    @Autowired
+    private ProAvailabilityService proAvailabilityService;
+
+    @Autowired
+    private ProAppointmentService proAppointmentService;
+
+    @Autowired
+    private PractitionerRepository practitionerRepository;
+
+    @Autowired
+    private TimeSlotRepository timeSlotRepository;
+
+    @Test
+    void importCsvMergesOverlappingTimeSlotsAndGeneratesAvailabilities() throws Exception {
+        Practitioner practitioner = practitionerRepository.save(entityFactory.createPractitioner());
+        LocalDateTime startDate = LocalDateTime.of(2020, Month.FEBRUARY, 5, 11, 0, 0);
+        timeSlotRepository.save(entityFactory.createTimeSlot(practitioner.getId(), startDate, startDate.plusMinutes(30)));
+        String csv = "practitionerId,startDate,endDate\n"
+                + practitioner.getId() + "," + startDate.plusMinutes(15) + "," + startDate.plusMinutes(45) + "\n"
+                + practitioner.getId() + "," + startDate.plusMinutes(45) + "," + startDate.plusHours(1) + "\n"
+                + practitioner.getId() + ",tomorrow," + startDate.plusHours(1) + "\n"
+                + Integer.MAX_VALUE + "," + startDate + "," + startDate.plusHours(1) + "\n";
+
+        TimeSlotImportResult result = importCsv(csv);
+
+        assertEquals(4, result.getRows());
+        assertEquals(2, result.getRejected());
+        assertEquals(1, result.getExtended());
+        result.getGeneration().await();
+        assertEquals(1, result.getGeneration().getCompleted());
+        List<TimeSlot> timeSlots = timeSlotRepository.findByPractitionerId(practitioner.getId());
+        assertEquals(1, timeSlots.size());
+        assertEquals(startDate, timeSlots.get(0).getStartDate());
+        assertEquals(startDate.plusHours(1), timeSlots.get(0).getEndDate());
+        assertEquals(List.of(startDate,
+                startDate.plusMinutes(15),
+                startDate.plusMinutes(30),
+                startDate.plusMinutes(45)), proAvailabilityService.findByPractitionerId(practitioner.getId()).stream()
+                .map(Availability::getStartDate)
+                .sorted()
+                .collect(Collectors.toList()));
+
+        TimeSlotImportResult reimport = importCsv(csv);
+
+        assertEquals(2, reimport.getUnchanged());
+        assertNull(reimport.getGeneration());
+    }
+
+    @Test
+    void weeklyRuleIsExpandedIntoTimeSlotsAndBookable() {
+        Practitioner practitioner = practitionerRepository.save(entityFactory.createPractitioner());
+        //rules are only expanded from the archive retention to the horizon, so the test runs on the coming weeks
+        LocalDate monday = LocalDate.now().with(TemporalAdjusters.next(DayOfWeek.MONDAY));
+        TimeSlotRule rule = proTimeSlotService.createRule(TimeSlotRule.builder()
+                .practitionerId(practitioner.getId())
+                .dayOfWeek(DayOfWeek.MONDAY)
+                .startTime(LocalTime.of(9, 0))
+                .endTime(LocalTime.of(10, 0))
+                .validFrom(monday.minusDays(2))
+                .validUntil(monday.plusWeeks(3))
+                .build());
+        proTimeSlotService.excludeDate(rule.getId(), monday.plusWeeks(1));
+
+        assertEquals(List.of(monday.atTime(9, 0),
+                monday.plusWeeks(2).atTime(9, 0),
+                monday.plusWeeks(3).atTime(9, 0)), proTimeSlotService.findByPractitionerId(practitioner.getId()).stream()
+                .map(TimeSlot::getStartDate)
+                .collect(Collectors.toList()));
+        assertEquals(12, proAvailabilityService.findByPractitionerId(practitioner.getId()).size());
+
+        LocalDateTime startDate = monday.plusWeeks(2).atTime(9, 0);
+        proAppointmentService.book(entityFactory.createAppointment(practitioner.getId(), 1, startDate, startDate.plusMinutes(15)));
+
+        assertEquals(11, proAvailabilityService.findByPractitionerId(practitioner.getId()).size());
+    }
+
+    private TimeSlotImportResult importCsv(String csv) throws Exception {
+        return proTimeSlotService.importCsv(new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)));
+    }
+}